@@ -0,0 +1,60 @@
+package com.unicodecleaner.cli;
+
+import com.unicodecleaner.utils.UnicodeDetector;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of scanning, and optionally fixing, one file.
+ */
+final class FileResult {
+
+    /**
+     * One issue, located by byte offset and, where known, by line and column.
+     */
+    static final class Finding {
+        final long byteOffset;
+        /** 1-based line, 0 if not known. */
+        final int line;
+        /** 1-based column in UTF-16 code units, 0 if not known. */
+        final int column;
+        final UnicodeDetector.CharacterInfo info;
+
+        Finding(long byteOffset, int line, int column, UnicodeDetector.CharacterInfo info) {
+            this.byteOffset = byteOffset;
+            this.line = line;
+            this.column = column;
+            this.info = info;
+        }
+
+        int byteLength() {
+            int codePoint = info.codePoint;
+            if (codePoint < 0x80) return 1;
+            if (codePoint < 0x800) return 2;
+            if (codePoint < 0x10000) return 3;
+            return 4;
+        }
+    }
+
+    final Path file;
+    /** Path as shown in reports, with forward slashes. */
+    final String displayPath;
+    final List<Finding> findings;
+    final boolean fixed;
+    /** Why the file could not be scanned or fixed, or {@code null}. */
+    final String error;
+
+    FileResult(Path file, String displayPath, List<Finding> findings, boolean fixed, String error) {
+        this.file = file;
+        this.displayPath = displayPath;
+        this.findings = findings;
+        this.fixed = fixed;
+        this.error = error;
+    }
+
+    static FileResult failed(Path file, String displayPath, String error) {
+        return new FileResult(file, displayPath, Collections.emptyList(), false, error);
+    }
+}
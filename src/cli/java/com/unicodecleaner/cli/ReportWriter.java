@@ -0,0 +1,219 @@
+package com.unicodecleaner.cli;
+
+import com.unicodecleaner.utils.UnicodeDetector;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes scan results as plain text, JSON or SARIF 2.1.0.
+ * JSON is written by hand to keep the command-line scanner free of dependencies.
+ */
+final class ReportWriter {
+
+    enum Format {
+        TEXT, JSON, SARIF
+    }
+
+    private static final String TOOL_NAME = "unicode-cleaner";
+
+    private ReportWriter() {
+    }
+
+    static void write(Format format, List<FileResult> results, PrintWriter out) {
+        switch (format) {
+            case JSON:
+                writeJson(results, out);
+                break;
+            case SARIF:
+                writeSarif(results, out);
+                break;
+            default:
+                writeText(results, out);
+                break;
+        }
+        out.flush();
+    }
+
+    /**
+     * One line per issue in the {@code path:line:column} form editors and CI logs link to.
+     */
+    private static void writeText(List<FileResult> results, PrintWriter out) {
+        int issueCount = 0;
+        int fileCount = 0;
+        for (FileResult result : results) {
+            if (result.error != null) {
+                out.println(result.displayPath + ": error: " + result.error);
+            }
+            for (FileResult.Finding finding : result.findings) {
+                String location = finding.line > 0
+                        ? finding.line + ":" + finding.column
+                        : "byte " + finding.byteOffset;
+                out.println(result.displayPath + ":" + location + ": " + describe(finding.info)
+                        + (result.fixed ? " [fixed]" : ""));
+            }
+            if (!result.findings.isEmpty()) {
+                issueCount += result.findings.size();
+                fileCount++;
+            }
+        }
+        out.println(String.format("Found %d Unicode issue(s) in %d file(s), %d file(s) scanned.",
+                issueCount, fileCount, results.size()));
+    }
+
+    private static void writeJson(List<FileResult> results, PrintWriter out) {
+        int issueCount = 0;
+        int fileCount = 0;
+        for (FileResult result : results) {
+            issueCount += result.findings.size();
+            fileCount += result.findings.isEmpty() ? 0 : 1;
+        }
+
+        out.println("{");
+        out.println("  \"filesScanned\": " + results.size() + ",");
+        out.println("  \"filesWithIssues\": " + fileCount + ",");
+        out.println("  \"issueCount\": " + issueCount + ",");
+        out.print("  \"files\": [");
+        boolean firstFile = true;
+        for (FileResult result : results) {
+            if (result.findings.isEmpty() && result.error == null) {
+                continue;
+            }
+            out.println(firstFile ? "" : ",");
+            firstFile = false;
+
+            out.println("    {");
+            out.println("      \"path\": " + quote(result.displayPath) + ",");
+            out.println("      \"fixed\": " + result.fixed + ",");
+            if (result.error != null) {
+                out.println("      \"error\": " + quote(result.error) + ",");
+            }
+            out.print("      \"issues\": [");
+            for (int i = 0; i < result.findings.size(); i++) {
+                FileResult.Finding finding = result.findings.get(i);
+                UnicodeDetector.CharacterInfo info = finding.info;
+                out.println(i == 0 ? "" : ",");
+                out.print("        {");
+                if (finding.line > 0) {
+                    out.print("\"line\": " + finding.line + ", \"column\": " + finding.column + ", ");
+                }
+                out.print("\"byteOffset\": " + finding.byteOffset
+                        + ", \"codePoint\": " + quote(info.unicode)
+                        + ", \"category\": " + quote(info.category.name())
+                        + ", \"description\": " + quote(info.description)
+                        + ", \"replacement\": " + quote(info.replacement) + "}");
+            }
+            out.println(result.findings.isEmpty() ? "]" : "\n      ]");
+            out.print("    }");
+        }
+        out.println(firstFile ? "]" : "\n  ]");
+        out.println("}");
+    }
+
+    /**
+     * One rule per category, one result per issue. Regions carry the byte range, and the
+     * line and column where they are known; SARIF columns count UTF-16 code units by default.
+     */
+    private static void writeSarif(List<FileResult> results, PrintWriter out) {
+        UnicodeDetector.CharacterCategory[] categories = UnicodeDetector.CharacterCategory.values();
+
+        out.println("{");
+        out.println("  \"$schema\": \"https://json.schemastore.org/sarif-2.1.0.json\",");
+        out.println("  \"version\": \"2.1.0\",");
+        out.println("  \"runs\": [{");
+        out.println("    \"tool\": {\"driver\": {");
+        out.println("      \"name\": " + quote(TOOL_NAME) + ",");
+        out.print("      \"rules\": [");
+        for (int i = 0; i < categories.length; i++) {
+            out.println(i == 0 ? "" : ",");
+            out.print("        {\"id\": " + quote(categories[i].name())
+                    + ", \"shortDescription\": {\"text\": " + quote(categories[i].getDisplayName()) + "}"
+                    + ", \"defaultConfiguration\": {\"level\": \"warning\"}}");
+        }
+        out.println("\n      ]");
+        out.println("    }},");
+        out.print("    \"results\": [");
+        boolean first = true;
+        for (FileResult result : results) {
+            for (FileResult.Finding finding : result.findings) {
+                out.println(first ? "" : ",");
+                first = false;
+
+                StringBuilder region = new StringBuilder();
+                if (finding.line > 0) {
+                    region.append("\"startLine\": ").append(finding.line)
+                          .append(", \"startColumn\": ").append(finding.column).append(", ");
+                }
+                region.append("\"byteOffset\": ").append(finding.byteOffset)
+                      .append(", \"byteLength\": ").append(finding.byteLength());
+
+                out.print("      {\"ruleId\": " + quote(finding.info.category.name())
+                        + ", \"ruleIndex\": " + finding.info.category.ordinal()
+                        + ", \"level\": \"warning\""
+                        + ", \"message\": {\"text\": " + quote(describe(finding.info)) + "}"
+                        + ", \"locations\": [{\"physicalLocation\": {"
+                        + "\"artifactLocation\": {\"uri\": " + quote(toUri(result.file)) + "}, "
+                        + "\"region\": {" + region + "}}}]}");
+            }
+        }
+        out.println(first ? "]" : "\n    ]");
+        out.println("  }]");
+        out.println("}");
+    }
+
+    /**
+     * SARIF locations are URIs: relative paths become percent-encoded relative references, so
+     * code scanning resolves them against the checkout, and absolute paths become file URIs.
+     */
+    static String toUri(Path file) {
+        Path normalized = file.normalize();
+        if (normalized.isAbsolute()) {
+            return normalized.toUri().toString();
+        }
+        StringBuilder uri = new StringBuilder();
+        for (Path name : normalized) {
+            if (uri.length() > 0) {
+                uri.append('/');
+            }
+            for (byte b : name.toString().getBytes(StandardCharsets.UTF_8)) {
+                char c = (char) (b & 0xFF);
+                if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                        || c == '-' || c == '.' || c == '_' || c == '~') {
+                    uri.append(c);
+                } else {
+                    uri.append(String.format("%%%02X", (int) c));
+                }
+            }
+        }
+        return uri.toString();
+    }
+
+    private static String describe(UnicodeDetector.CharacterInfo info) {
+        return String.format("Problematic Unicode character: %s (%s) - %s",
+                info.unicode, info.category.getDisplayName(), info.description);
+    }
+
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    // Escape everything outside printable ASCII, replacements include invisible characters
+                    if (c < 0x20 || c > 0x7E) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
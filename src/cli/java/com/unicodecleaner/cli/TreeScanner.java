@@ -0,0 +1,243 @@
+package com.unicodecleaner.cli;
+
+import com.unicodecleaner.utils.StreamingCleaner;
+import com.unicodecleaner.utils.UnicodeDetector;
+import com.unicodecleaner.utils.Utf8Scanner;
+import com.unicodecleaner.utils.WindowedFileScanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Walks directory trees and scans the matching files on a fixed thread pool.
+ * Files are read as raw UTF-8 bytes and matched without decoding, so pure ASCII files cost a
+ * single pass of word-sized checks. Files above the mapping threshold are scanned through
+ * fixed-size windows instead of being read whole; their issues carry byte offsets only.
+ */
+final class TreeScanner {
+
+    /** Files larger than this are scanned through {@link WindowedFileScanner}. */
+    static final long WINDOWED_THRESHOLD_BYTES = 16L * 1024 * 1024;
+
+    // Like git, a NUL byte near the start marks a file as binary
+    private static final int BINARY_CHECK_BYTES = 8000;
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final int categoryMask;
+    /** Lower-case extensions to scan, or {@code null} for every file. */
+    private final Set<String> extensions;
+    private final int threads;
+    private final boolean fix;
+
+    TreeScanner(int categoryMask, Set<String> extensions, int threads, boolean fix) {
+        this.categoryMask = categoryMask;
+        this.extensions = extensions;
+        this.threads = Math.max(1, threads);
+        this.fix = fix;
+    }
+
+    /**
+     * Scans every matching file under the roots and returns the results in path order.
+     * Clean files are included so callers can count them.
+     */
+    List<FileResult> scan(List<Path> roots) throws IOException, InterruptedException {
+        List<Path> files = new ArrayList<>();
+        // Directories and files that could not be read during the walk, reported in place
+        Map<Path, String> walkErrors = new HashMap<>();
+        for (Path root : roots) {
+            List<Path> rootFiles = new ArrayList<>();
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    Path name = dir.getFileName();
+                    return !dir.equals(root) && name != null && name.toString().equals(".git")
+                        ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    // Symbolic links count when they point to a file, as with Files.isRegularFile
+                    boolean regular = attrs.isRegularFile() || (attrs.isSymbolicLink() && Files.isRegularFile(file));
+                    if (regular && hasMatchingExtension(file)) {
+                        rootFiles.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException ex) throws IOException {
+                    if (file.equals(root)) {
+                        throw ex;
+                    }
+                    // Unreadable, or deleted while walking
+                    rootFiles.add(file);
+                    walkErrors.put(file, "Failed to read: " + ex.getMessage());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException ex) {
+                    if (ex != null) {
+                        rootFiles.add(dir);
+                        walkErrors.put(dir, "Failed to list: " + ex.getMessage());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            Collections.sort(rootFiles);
+            files.addAll(rootFiles);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "unicode-cleaner-scanner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<FileResult>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                String walkError = walkErrors.get(file);
+                futures.add(walkError != null
+                    ? CompletableFuture.completedFuture(FileResult.failed(file, toDisplayPath(file), walkError))
+                    : executor.submit(() -> scanFile(file)));
+            }
+
+            List<FileResult> results = new ArrayList<>(files.size());
+            for (Future<FileResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException ex) {
+                    // scanFile reports its own failures, anything else is a bug
+                    throw new IllegalStateException(ex.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private FileResult scanFile(Path file) {
+        String displayPath = toDisplayPath(file);
+        List<FileResult.Finding> findings = new ArrayList<>();
+        try {
+            if (Files.size(file) > WINDOWED_THRESHOLD_BYTES) {
+                byte[] head = readHead(file);
+                if (isBinary(head, head.length)) {
+                    return new FileResult(file, displayPath, findings, false, null);
+                }
+                new WindowedFileScanner(categoryMask).scan(file,
+                    (byteOffset, charOffset, info) -> findings.add(new FileResult.Finding(byteOffset, 0, 0, info)));
+            } else {
+                byte[] bytes = Files.readAllBytes(file);
+                if (isBinary(bytes, Math.min(bytes.length, BINARY_CHECK_BYTES))) {
+                    return new FileResult(file, displayPath, findings, false, null);
+                }
+                int start = startsWith(bytes, UTF8_BOM) ? UTF8_BOM.length : 0;
+                Utf8Scanner.scan(bytes, start, bytes.length, categoryMask, new LineTracker(bytes, start, findings));
+            }
+        } catch (IOException ex) {
+            return FileResult.failed(file, displayPath, "Failed to scan: " + ex.getMessage());
+        }
+
+        if (!fix || findings.isEmpty()) {
+            return new FileResult(file, displayPath, findings, false, null);
+        }
+        try {
+            new StreamingCleaner(categoryMask, false).cleanFile(file, StandardCharsets.UTF_8, UTF8_BOM);
+            return new FileResult(file, displayPath, findings, true, null);
+        } catch (IOException ex) {
+            return new FileResult(file, displayPath, findings, false, "Failed to clean: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Turns byte offsets into lines and columns, counting newlines only up to each issue.
+     * Issues arrive in order, so the whole file is traversed at most once.
+     */
+    private static final class LineTracker implements Utf8Scanner.IssueHandler {
+        private final byte[] bytes;
+        private final List<FileResult.Finding> findings;
+        private int line = 1;
+        private int lineStart;
+        private int position;
+
+        LineTracker(byte[] bytes, int start, List<FileResult.Finding> findings) {
+            this.bytes = bytes;
+            this.findings = findings;
+            this.lineStart = start;
+            this.position = start;
+        }
+
+        @Override
+        public void issue(int byteOffset, long charOffset, UnicodeDetector.CharacterInfo info) {
+            for (; position < byteOffset; position++) {
+                if (bytes[position] == '\n') {
+                    line++;
+                    lineStart = position + 1;
+                }
+            }
+            int column = (int) Utf8Scanner.utf16Length(bytes, lineStart, byteOffset) + 1;
+            findings.add(new FileResult.Finding(byteOffset, line, column, info));
+        }
+    }
+
+    private boolean hasMatchingExtension(Path file) {
+        if (extensions == null) {
+            return true;
+        }
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && extensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static byte[] readHead(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return input.readNBytes(BINARY_CHECK_BYTES);
+        }
+    }
+
+    private static boolean isBinary(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String toDisplayPath(Path file) {
+        return file.normalize().toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,194 @@
+package com.unicodecleaner.cli;
+
+import com.unicodecleaner.utils.UnicodeDetector;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Command-line scanner for CI, using the same detection engine as the plugin but none of the
+ * IntelliJ platform. Exits with 0 when no issues remain, 1 when issues were found and not
+ * fixed, and 2 on usage or I/O errors. Files are assumed to be UTF-8.
+ */
+public final class UnicodeCleanerCli {
+
+    static final int EXIT_CLEAN = 0;
+    static final int EXIT_ISSUES = 1;
+    static final int EXIT_ERROR = 2;
+
+    // Same defaults as the plugin settings
+    private static final Set<String> DEFAULT_EXTENSIONS = new HashSet<>(Arrays.asList(
+        "txt", "md", "rst", "java", "js", "ts", "py", "cpp", "c", "h",
+        "xml", "json", "yaml", "yml", "properties", "html", "css"
+    ));
+
+    private static final String USAGE =
+        "Usage: unicode-cleaner [options] <path>...\n" +
+        "\n" +
+        "Options:\n" +
+        "  --format text|json|sarif  Report format (default: text)\n" +
+        "  --output <file>           Write the report to a file instead of standard output\n" +
+        "  --categories <list>       Comma-separated categories to check (default: all)\n" +
+        "                            " + String.join(",", categoryNames()) + "\n" +
+        "  --extensions <list>       Comma-separated file extensions to scan, or * for all files\n" +
+        "  --threads <n>             Number of scanner threads (default: available processors)\n" +
+        "  --fix                     Clean files with issues in place\n" +
+        "  --help                    Show this message\n";
+
+    private UnicodeCleanerCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        ReportWriter.Format format = ReportWriter.Format.TEXT;
+        Path output = null;
+        int categoryMask = UnicodeDetector.ALL_CATEGORIES_MASK;
+        Set<String> extensions = DEFAULT_EXTENSIONS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean fix = false;
+        List<Path> roots = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--format":
+                        format = parseFormat(value(args, ++i, arg));
+                        break;
+                    case "--output":
+                        output = Paths.get(value(args, ++i, arg));
+                        break;
+                    case "--categories":
+                        categoryMask = parseCategories(value(args, ++i, arg));
+                        break;
+                    case "--extensions":
+                        extensions = parseExtensions(value(args, ++i, arg));
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value(args, ++i, arg));
+                        break;
+                    case "--fix":
+                        fix = true;
+                        break;
+                    case "--help":
+                        System.out.print(USAGE);
+                        return EXIT_CLEAN;
+                    default:
+                        if (arg.startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option: " + arg);
+                        }
+                        roots.add(Paths.get(arg));
+                }
+            }
+            if (roots.isEmpty()) {
+                throw new IllegalArgumentException("No path given");
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            return EXIT_ERROR;
+        }
+
+        List<FileResult> results;
+        try {
+            results = new TreeScanner(categoryMask, extensions, threads, fix).scan(roots);
+        } catch (IOException ex) {
+            System.err.println("Failed to walk files: " + ex.getMessage());
+            return EXIT_ERROR;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return EXIT_ERROR;
+        }
+
+        try {
+            writeReport(format, output, results);
+        } catch (IOException ex) {
+            System.err.println("Failed to write report: " + ex.getMessage());
+            return EXIT_ERROR;
+        }
+
+        boolean failed = false;
+        boolean remaining = false;
+        for (FileResult result : results) {
+            if (result.error != null) {
+                System.err.println(result.displayPath + ": " + result.error);
+                failed = true;
+            }
+            if (!result.findings.isEmpty() && !result.fixed) {
+                remaining = true;
+            }
+        }
+        return failed ? EXIT_ERROR : remaining ? EXIT_ISSUES : EXIT_CLEAN;
+    }
+
+    private static void writeReport(ReportWriter.Format format, Path output, List<FileResult> results) throws IOException {
+        if (output == null) {
+            ReportWriter.write(format, results, new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            ReportWriter.write(format, results, out);
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    private static ReportWriter.Format parseFormat(String name) {
+        try {
+            return ReportWriter.Format.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown format: " + name);
+        }
+    }
+
+    private static int parseCategories(String list) {
+        int mask = 0;
+        for (String name : list.split(",")) {
+            try {
+                mask |= UnicodeDetector.CharacterCategory.valueOf(name.trim().toUpperCase(Locale.ROOT)).getMask();
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown category: " + name.trim());
+            }
+        }
+        return mask;
+    }
+
+    private static Set<String> parseExtensions(String list) {
+        if (list.trim().equals("*")) {
+            return null;
+        }
+        Set<String> extensions = new HashSet<>();
+        for (String extension : list.split(",")) {
+            String trimmed = extension.trim().toLowerCase(Locale.ROOT);
+            extensions.add(trimmed.startsWith(".") ? trimmed.substring(1) : trimmed);
+        }
+        return extensions;
+    }
+
+    private static List<String> categoryNames() {
+        List<String> names = new ArrayList<>();
+        for (UnicodeDetector.CharacterCategory category : UnicodeDetector.CharacterCategory.values()) {
+            names.add(category.name());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,52 @@
+package com.unicodecleaner.benchmarks;
+
+import com.unicodecleaner.utils.UnicodeDetector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the surrogate-aware detector scan with a plain char-only scan over the same text.
+ * Both sides only count matches, so no issue objects are allocated and the difference is the
+ * cost of decoding code points. On ASCII input both should run at the same speed, since the
+ * supplementary lookup is only reached for high surrogates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodePointScanBenchmark {
+
+    @Param({Corpus.ASCII, Corpus.ASTRAL})
+    public String corpus;
+
+    @Param({"1048576"})
+    public int size;
+
+    private String text;
+    private UnicodeDetector detector;
+
+    @Setup
+    public void setUp() {
+        detector = new UnicodeDetector();
+        text = Corpus.generate(corpus, size, 42);
+    }
+
+    @Benchmark
+    public int codePointScanner() {
+        return detector.countIssues(text, UnicodeDetector.ALL_CATEGORIES_MASK);
+    }
+
+    @Benchmark
+    public int charOnlyScanner() {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (UnicodeDetector.isProblematicCharacter(text.charAt(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,96 @@
+package com.unicodecleaner.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Seeded in-memory corpora for the detector benchmarks.
+ */
+final class Corpus {
+
+    /** Plain ASCII source code, the common case: no hits at all. */
+    static final String ASCII = "ascii";
+    /** English prose with occasional smart quotes, dashes, ellipses and non-breaking spaces. */
+    static final String PROSE = "prose";
+    /** CJK text with full-width punctuation, letters and ideographic spaces. */
+    static final String CJK = "cjk";
+    /** Every character is a hit (pathological worst case). */
+    static final String ALL_HIT = "allhit";
+    /** ASCII with emoji, math lookalikes and tag characters (supplementary code points). */
+    static final String ASTRAL = "astral";
+
+    private static final String[] SOURCE_LINES = {
+        "public final class Example {",
+        "    private static final int LIMIT = 1024;",
+        "    // Returns the number of elements in the buffer",
+        "    public int size() { return buffer.length - offset; }",
+        "    if (value == null) throw new IllegalArgumentException(\"value\");",
+        "}",
+        ""
+    };
+
+    private static final String[] WORDS = {
+        "the", "detector", "scans", "every", "file", "for", "characters", "that", "look", "like",
+        "typography", "and", "replaces", "them", "with", "plain", "ASCII", "equivalents", "quickly"
+    };
+
+    private static final char[] PROSE_HITS = {'\u201C', '\u201D', '\u2019', '\u2014', '\u2013', '\u2026', '\u00A0'};
+
+    private static final char[] ALL_HITS = {
+        '\u200B', '\u00A0', '\u2018', '\u201C', '\u2014', '\u2026', '\uFF21', '\uFE0F', '\u3000', '\u00AD'
+    };
+
+    private Corpus() {
+    }
+
+    static String generate(String kind, int size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder(size + 64);
+
+        while (builder.length() < size) {
+            switch (kind) {
+                case ASCII:
+                    builder.append(SOURCE_LINES[random.nextInt(SOURCE_LINES.length)]).append('\n');
+                    break;
+                case PROSE:
+                    builder.append(WORDS[random.nextInt(WORDS.length)]);
+                    builder.append(random.nextInt(12) == 0 ? PROSE_HITS[random.nextInt(PROSE_HITS.length)] : ' ');
+                    if (random.nextInt(15) == 0) {
+                        builder.append(".\n");
+                    }
+                    break;
+                case CJK:
+                    int roll = random.nextInt(10);
+                    if (roll < 6) {
+                        builder.append((char) (0x4E00 + random.nextInt(0x5000))); // CJK ideograph, clean
+                    } else if (roll < 8) {
+                        builder.append((char) (0xFF01 + random.nextInt(0x5E))); // full-width ASCII variant
+                    } else if (roll < 9) {
+                        builder.append('\u3000');
+                    } else {
+                        builder.append('\n');
+                    }
+                    break;
+                case ALL_HIT:
+                    builder.append(ALL_HITS[random.nextInt(ALL_HITS.length)]);
+                    break;
+                case ASTRAL:
+                    if (random.nextInt(64) == 0) {
+                        // Emoji (clean), math bold letter and tag character (both problematic)
+                        int[] codePoints = {0x1F600, 0x1D400 + random.nextInt(52), 0xE0041 + random.nextInt(26)};
+                        builder.appendCodePoint(codePoints[random.nextInt(codePoints.length)]);
+                    } else {
+                        builder.append((char) (' ' + random.nextInt(95)));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown corpus: " + kind);
+            }
+        }
+
+        builder.setLength(size);
+        if (Character.isHighSurrogate(builder.charAt(size - 1))) {
+            builder.setCharAt(size - 1, ' ');
+        }
+        return builder.toString();
+    }
+}
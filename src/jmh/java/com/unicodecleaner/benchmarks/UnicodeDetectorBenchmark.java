@@ -0,0 +1,98 @@
+package com.unicodecleaner.benchmarks;
+
+import com.unicodecleaner.utils.UnicodeDetector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the public detector entry points across corpora and sizes.
+ * The {@code chars} counter reports characters per second (ns/char is its inverse), and the
+ * GC profiler configured in build.gradle adds the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class UnicodeDetectorBenchmark {
+
+    @Param({Corpus.ASCII, Corpus.PROSE, Corpus.CJK, Corpus.ALL_HIT})
+    public String corpus;
+
+    @Param({"1024", "65536", "1048576", "52428800"})
+    public int size;
+
+    private String text;
+    private UnicodeDetector detector;
+
+    // Full-width characters deliberately allowed, as in a typical CJK project configuration
+    private final Set<UnicodeDetector.CharacterCategory> categories =
+            EnumSet.complementOf(EnumSet.of(UnicodeDetector.CharacterCategory.FULL_WIDTH));
+
+    /**
+     * Counts processed characters so JMH reports a chars/s rate next to ops/s.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class CharCounter {
+        public long chars;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            chars = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        detector = new UnicodeDetector();
+        text = Corpus.generate(corpus, size, 42);
+    }
+
+    @Benchmark
+    public List<UnicodeDetector.UnicodeIssue> detectIssues(CharCounter counter) {
+        counter.chars += text.length();
+        return detector.detectIssues(text);
+    }
+
+    @Benchmark
+    public List<UnicodeDetector.UnicodeIssue> detectIssuesByCategory(CharCounter counter) {
+        counter.chars += text.length();
+        return detector.detectIssues(text, categories);
+    }
+
+    @Benchmark
+    public int countIssues(CharCounter counter) {
+        counter.chars += text.length();
+        return detector.countIssues(text, UnicodeDetector.ALL_CATEGORIES_MASK);
+    }
+
+    @Benchmark
+    public int[] countByCategory(CharCounter counter) {
+        counter.chars += text.length();
+        return detector.countByCategory(text, UnicodeDetector.ALL_CATEGORIES_MASK);
+    }
+
+    @Benchmark
+    public boolean containsIssue(CharCounter counter) {
+        counter.chars += text.length();
+        return detector.containsIssue(text, UnicodeDetector.ALL_CATEGORIES_MASK);
+    }
+
+    @Benchmark
+    public String cleanText(CharCounter counter) {
+        counter.chars += text.length();
+        return detector.cleanText(text);
+    }
+
+    @Benchmark
+    public String cleanTextByCategory(CharCounter counter) {
+        counter.chars += text.length();
+        return detector.cleanText(text, categories);
+    }
+}
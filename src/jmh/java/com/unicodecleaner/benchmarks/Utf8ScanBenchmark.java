@@ -0,0 +1,47 @@
+package com.unicodecleaner.benchmarks;
+
+import com.unicodecleaner.utils.UnicodeDetector;
+import com.unicodecleaner.utils.Utf8Scanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares matching raw UTF-8 bytes with decoding them to a string and running the detector,
+ * which is what the project scan did for every file before the byte-level pre-filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Utf8ScanBenchmark {
+
+    @Param({Corpus.ASCII, Corpus.PROSE, Corpus.CJK})
+    public String corpus;
+
+    @Param({"65536", "1048576"})
+    public int size;
+
+    private byte[] bytes;
+    private UnicodeDetector detector;
+
+    @Setup
+    public void setUp() {
+        detector = new UnicodeDetector();
+        bytes = Corpus.generate(corpus, size, 42).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int utf8Scanner() {
+        return Utf8Scanner.countIssues(bytes, 0, bytes.length, UnicodeDetector.ALL_CATEGORIES_MASK);
+    }
+
+    @Benchmark
+    public int decodeAndDetect() {
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        return detector.detectIssues(text, UnicodeDetector.ALL_CATEGORIES_MASK).size();
+    }
+}
@@ -6,14 +6,18 @@ import com.intellij.openapi.actionSystem.CommonDataKeys;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.psi.PsiFile;
+import com.unicodecleaner.services.EditScriptApplier;
 import com.unicodecleaner.settings.UnicodeCleanerSettings;
+import com.unicodecleaner.utils.EditScript;
 import com.unicodecleaner.utils.UnicodeDetector;
+import com.unicodecleaner.vcs.ChangedRanges;
 import org.jetbrains.annotations.NotNull;
-
-import java.util.List;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Action to clean Unicode characters in the current file.
@@ -38,7 +42,8 @@ public class CleanCurrentFileAction extends AnAction {
         }
 
         Document document = editor.getDocument();
-        String originalText = document.getText();
+        CharSequence originalText = document.getImmutableCharSequence();
+        long modificationStamp = document.getModificationStamp();
 
         // Check if file should be processed
         UnicodeCleanerSettings settings = UnicodeCleanerSettings.getInstance();
@@ -53,17 +58,42 @@ public class CleanCurrentFileAction extends AnAction {
             return;
         }
 
+        // In changed-lines mode only the lines changed since the last commit are cleaned
+        boolean changedLinesOnly = settings.isChangedLinesOnlyEnabled();
+        int[] ranges = ChangedRanges.whole(originalText);
+        if (changedLinesOnly) {
+            // May load the last committed revision from the VCS, so it runs under a cancelable progress
+            ChangedRanges.Snapshot snapshot;
+            try {
+                snapshot = ProgressManager.getInstance().runProcessWithProgressSynchronously(
+                        () -> ChangedRanges.computeSnapshot(project, document,
+                                ProgressManager.getInstance().getProgressIndicator()),
+                        "Finding Changed Lines",
+                        true,
+                        project
+                );
+            } catch (ProcessCanceledException ex) {
+                return;
+            }
+            // The ranges refer to the text they were computed for
+            originalText = snapshot.text;
+            modificationStamp = snapshot.modificationStamp;
+            ranges = snapshot.ranges;
+        }
+        String scope = changedLinesOnly ? "the changed lines of this file" : "this file";
+
         // Detect issues
         UnicodeDetector detector = new UnicodeDetector();
-        List<UnicodeDetector.UnicodeIssue> issues = detector.detectIssues(
+        int issueCount = detector.countIssues(
                 originalText,
-                settings.getEnabledCategories()
+                ranges,
+                settings.getEnabledCategoryMask()
         );
 
-        if (issues.isEmpty()) {
+        if (issueCount == 0) {
             Messages.showMessageDialog(
                     project,
-                    "No Unicode issues found in this file.",
+                    "No Unicode issues found in " + scope + ".",
                     "Unicode Cleaner",
                     Messages.getInformationIcon()
             );
@@ -74,39 +104,66 @@ public class CleanCurrentFileAction extends AnAction {
         int result = Messages.showYesNoDialog(
                 project,
                 String.format(
-                        "Found %d Unicode issue(s) in this file.\n\n" +
+                        "Found %d Unicode issue(s) in %s.\n\n" +
                                 "Do you want to clean them?",
-                        issues.size()
+                        issueCount,
+                        scope
                 ),
                 "Unicode Cleaner",
                 Messages.getQuestionIcon()
         );
 
         if (result == Messages.YES) {
-            cleanFile(project, document, originalText, detector, settings);
+            cleanFile(project, document, originalText, modificationStamp, changedLinesOnly ? ranges : null, detector, settings);
         }
     }
 
     private void cleanFile(@NotNull Project project,
                            @NotNull Document document,
-                           @NotNull String originalText,
+                           @NotNull CharSequence originalText,
+                           long modificationStamp,
+                           int @Nullable [] ranges,
                            @NotNull UnicodeDetector detector,
                            @NotNull UnicodeCleanerSettings settings) {
 
-        String cleanedText = detector.cleanText(originalText, settings.getEnabledCategories());
-        int removedChars = originalText.length() - cleanedText.length();
+        int categoryMask = settings.getEnabledCategoryMask();
+        // Stays null when the file was left alone
+        Integer[] removedChars = {null};
 
         WriteCommandAction.runWriteCommandAction(project, () -> {
-            document.setText(cleanedText);
+            // The edits are offsets into the text that was checked, the document may have changed since
+            EditScript edits;
+            if (document.getModificationStamp() == modificationStamp) {
+                edits = ranges != null
+                        ? detector.computeEdits(originalText, ranges, categoryMask)
+                        : detector.computeEdits(originalText, categoryMask);
+            } else if (ranges == null) {
+                edits = detector.computeEdits(document.getImmutableCharSequence(), categoryMask);
+            } else {
+                // The changed lines moved with the edit, leave the file alone
+                return;
+            }
+            EditScriptApplier.apply(document, edits);
+            removedChars[0] = -edits.getLengthDelta();
         });
 
+        if (removedChars[0] == null) {
+            Messages.showWarningDialog(
+                    project,
+                    "The file changed while its changed lines were checked, so it was not cleaned.\n" +
+                            "Run the action again to clean it.",
+                    "Unicode Cleaner"
+            );
+            return;
+        }
+
         // Show success message AFTER the write action completes
         Messages.showMessageDialog(
                 project,
                 String.format(
                         "Unicode cleaning completed!\n\n" +
                                 "Characters removed/replaced: %d",
-                        removedChars
+                        removedChars[0]
                 ),
                 "Unicode Cleaner",
                 Messages.getInformationIcon()
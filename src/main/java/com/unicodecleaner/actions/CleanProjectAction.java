@@ -3,24 +3,26 @@ package com.unicodecleaner.actions;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.application.ReadAction;
-import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.roots.ProjectFileIndex;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiManager;
+import com.unicodecleaner.index.UnicodeIssueIndex;
+import com.unicodecleaner.services.BatchedDocumentWriter;
+import com.unicodecleaner.services.ParallelFileScanner;
 import com.unicodecleaner.settings.UnicodeCleanerSettings;
-import com.unicodecleaner.utils.UnicodeDetector;
+import com.unicodecleaner.vcs.ChangedRanges;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Action to clean Unicode characters in all project files.
@@ -64,103 +66,91 @@ public class CleanProjectAction extends AnAction {
         indicator.setIndeterminate(false);
         indicator.setText("Scanning project files...");
         
-        // Get all files in the project - Using ProjectFileIndex (public API)
-        Collection<VirtualFile> allFiles = ReadAction.compute(() -> {
-            List<VirtualFile> files = new ArrayList<>();
-            ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
-            
-            VfsUtilCore.iterateChildrenRecursively(project.getBaseDir(), null, file -> {
-                if (!file.isDirectory() && fileIndex.isInContent(file)) {
-                    files.add(file);
-                }
-                return true;
+        int categoryMask = settings.getEnabledCategoryMask();
+        
+        // In smart mode the issue index already knows which files have issues, only files
+        // too large to be indexed are scanned on top
+        Collection<VirtualFile> allFiles = DumbService.getInstance(project).tryRunReadActionInSmartMode(
+            () -> UnicodeIssueIndex.findFilesToScan(project, categoryMask),
+            null
+        );
+        
+        // While indexing, get all files in the project - Using ProjectFileIndex (public API)
+        boolean fromIndex = allFiles != null;
+        if (!fromIndex) {
+            allFiles = ReadAction.compute(() -> {
+                List<VirtualFile> files = new ArrayList<>();
+                ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+                
+                VfsUtilCore.iterateChildrenRecursively(project.getBaseDir(), null, file -> {
+                    if (!file.isDirectory() && fileIndex.isInContent(file)) {
+                        files.add(file);
+                    }
+                    return true;
+                });
+                
+                return files;
             });
-            
-            return files;
-        });
+        }
         
         // Add other file types
+        boolean changedLinesOnly = settings.isChangedLinesOnlyEnabled();
         List<VirtualFile> filesToProcess = new ArrayList<>();
-        PsiManager psiManager = PsiManager.getInstance(project);
         
         // Collect files that should be processed
         for (VirtualFile vFile : allFiles) {
             if (indicator.isCanceled()) return;
             
-            if (settings.shouldCheckFileType(vFile.getName())) {
+            if (settings.shouldCheckFileType(vFile.getName())
+                    && (!changedLinesOnly || ChangedRanges.hasChanges(project, vFile))) {
                 filesToProcess.add(vFile);
             }
         }
         
         if (filesToProcess.isEmpty()) {
-            Messages.showMessageDialog(
-                project,
-                "No files found that match the configured file types.",
-                "Unicode Cleaner",
-                Messages.getInformationIcon()
-            );
+            final boolean finalFromIndex = fromIndex;
+            com.intellij.openapi.application.ApplicationManager.getApplication().invokeLater(() -> {
+                Messages.showMessageDialog(
+                    project,
+                    finalFromIndex
+                        ? "No Unicode issues found in files that match the configured file types."
+                        : "No files found that match the configured file types.",
+                    "Unicode Cleaner",
+                    Messages.getInformationIcon()
+                );
+            });
             return;
         }
         
         indicator.setText("Processing " + filesToProcess.size() + " files...");
         
-        UnicodeDetector detector = new UnicodeDetector();
-        int processedFiles = 0;
-        int cleanedFiles = 0;
-        int totalIssuesFixed = 0;
+        BatchedDocumentWriter writer = new BatchedDocumentWriter(project, "Clean Unicode Characters in Project",
+            categoryMask, settings.getWriteBatchSize(), settings.getWriteBatchTimeBudgetMs(), changedLinesOnly);
+        AtomicInteger cleanedFiles = new AtomicInteger();
+        AtomicInteger totalIssuesFixed = new AtomicInteger();
         
-        for (VirtualFile vFile : filesToProcess) {
-            if (indicator.isCanceled()) return;
-            
-            indicator.setFraction((double) processedFiles / filesToProcess.size());
-            indicator.setText2("Processing: " + vFile.getName());
+        // Detection fans out over a worker pool, writes are batched into few EDT write commands
+        ParallelFileScanner scanner = new ParallelFileScanner(project, categoryMask);
+        int processedFiles = scanner.scan(filesToProcess, indicator, result -> {
+            VirtualFile vFile = result.file;
+            indicator.setText("Cleaning: " + vFile.getName());
             
-            try {
-                PsiFile psiFile = psiManager.findFile(vFile);
-                if (psiFile != null) {
-                    String originalText = psiFile.getText();
-                    
-                    List<UnicodeDetector.UnicodeIssue> issues = detector.detectIssues(
-                        originalText, 
-                        settings.getEnabledCategories()
-                    );
-                    
-                    if (!issues.isEmpty()) {
-                        String cleanedText = detector.cleanText(
-                            originalText, 
-                            settings.getEnabledCategories()
-                        );
-                        
-                        if (!originalText.equals(cleanedText)) {
-                            // Apply changes in EDT
-                            WriteCommandAction.runWriteCommandAction(project, () -> {
-                                try {
-                                    com.intellij.openapi.editor.Document document = 
-                                        com.intellij.psi.PsiDocumentManager.getInstance(project).getDocument(psiFile);
-                                    if (document != null) {
-                                        document.setText(cleanedText);
-                                        com.intellij.psi.PsiDocumentManager.getInstance(project).commitDocument(document);
-                                    }
-                                } catch (Exception ex) {
-                                    System.err.println("Failed to clean file: " + vFile.getName() + " - " + ex.getMessage());
-                                }
-                            });
-                            
-                            cleanedFiles++;
-                            totalIssuesFixed += issues.size();
-                        }
-                    }
-                }
-            } catch (Exception ex) {
-                System.err.println("Error processing file: " + vFile.getName() + " - " + ex.getMessage());
+            // In changed-lines mode only part of the detected issues may be fixed
+            int fixedIssues = writer.add(vFile);
+            if (fixedIssues > 0) {
+                cleanedFiles.incrementAndGet();
+                totalIssuesFixed.addAndGet(fixedIssues);
             }
-            
-            processedFiles++;
-        }
+        });
+        
+        // Files already counted as cleaned are written even when canceled
+        writer.flush();
+        
+        if (indicator.isCanceled()) return;
         
         // Show results
-        final int finalCleanedFiles = cleanedFiles;
-        final int finalTotalIssues = totalIssuesFixed;
+        final int finalCleanedFiles = cleanedFiles.get();
+        final int finalTotalIssues = totalIssuesFixed.get();
         final int finalProcessedFiles = processedFiles;
         
         com.intellij.openapi.application.ApplicationManager.getApplication().invokeLater(() -> {
@@ -3,21 +3,23 @@ package com.unicodecleaner.actions;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
-import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiManager;
+import com.unicodecleaner.services.BatchedDocumentWriter;
+import com.unicodecleaner.services.ParallelFileScanner;
 import com.unicodecleaner.settings.UnicodeCleanerSettings;
-import com.unicodecleaner.utils.UnicodeDetector;
+import com.unicodecleaner.utils.StreamingCleaner;
+import com.unicodecleaner.vcs.ChangedRanges;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Action to clean Unicode characters in selected files from project view.
@@ -90,64 +92,57 @@ public class CleanSelectedFilesAction extends AnAction {
         indicator.setIndeterminate(false);
         indicator.setText("Cleaning selected files...");
 
-        UnicodeDetector detector = new UnicodeDetector();
-        PsiManager psiManager = PsiManager.getInstance(project);
-        int processedFiles = 0;
-        int cleanedFiles = 0;
-        int totalIssuesFixed = 0;
-
-        for (VirtualFile vFile : files) {
-            if (indicator.isCanceled()) return;
-
-            indicator.setFraction((double) processedFiles / files.size());
-            indicator.setText2("Processing: " + vFile.getName());
-
-            try {
-                PsiFile psiFile = psiManager.findFile(vFile);
-                if (psiFile != null) {
-                    String originalText = psiFile.getText();
-
-                    List<UnicodeDetector.UnicodeIssue> issues = detector.detectIssues(
-                        originalText,
-                        settings.getEnabledCategories()
-                    );
-
-                    if (!issues.isEmpty()) {
-                        String cleanedText = detector.cleanText(
-                            originalText,
-                            settings.getEnabledCategories()
-                        );
-
-                        if (!originalText.equals(cleanedText)) {
-                            // Apply changes in EDT
-                            WriteCommandAction.runWriteCommandAction(project, () -> {
-                                try {
-                                    com.intellij.openapi.editor.Document document =
-                                        com.intellij.psi.PsiDocumentManager.getInstance(project).getDocument(psiFile);
-                                    if (document != null) {
-                                        document.setText(cleanedText);
-                                        com.intellij.psi.PsiDocumentManager.getInstance(project).commitDocument(document);
-                                    }
-                                } catch (Exception ex) {
-                                    System.err.println("Failed to clean file: " + vFile.getName() + " - " + ex.getMessage());
-                                }
-                            });
-
-                            cleanedFiles++;
-                            totalIssuesFixed += issues.size();
-                        }
-                    }
+        int categoryMask = settings.getEnabledCategoryMask();
+        boolean changedLinesOnly = settings.isChangedLinesOnlyEnabled();
+        if (changedLinesOnly) {
+            // Files without local changes have nothing to clean
+            files = files.stream()
+                .filter(file -> ChangedRanges.hasChanges(project, file))
+                .toList();
+        }
+        BatchedDocumentWriter writer = new BatchedDocumentWriter(project, "Clean Selected Files",
+            categoryMask, settings.getWriteBatchSize(), settings.getWriteBatchTimeBudgetMs(), changedLinesOnly);
+        AtomicInteger cleanedFiles = new AtomicInteger();
+        AtomicInteger totalIssuesFixed = new AtomicInteger();
+        long maxFileSizeBytes = settings.getMaxFileSizeKB() * 1024L;
+
+        // Detection reads file bytes on a worker pool, only files with issues get a document
+        ParallelFileScanner scanner = new ParallelFileScanner(project, categoryMask);
+        int processedFiles = scanner.scan(files, indicator, scanResult -> {
+            VirtualFile vFile = scanResult.file;
+            indicator.setText2("Cleaning: " + vFile.getName());
+
+            int fixedIssues = scanResult.issueCount;
+            // The streaming cleaner works on whole files, so changed lines always go through the document
+            if (!changedLinesOnly && vFile.getLength() > maxFileSizeBytes && vFile.isInLocalFileSystem()
+                    && !FileDocumentManager.getInstance().isFileModified(vFile)) {
+                // Too large for a document, clean the file on disk in constant memory
+                try {
+                    new StreamingCleaner(categoryMask, false)
+                        .cleanFile(vFile.toNioPath(), vFile.getCharset(), vFile.getBOM());
+                    vFile.refresh(false, false);
+                } catch (Exception ex) {
+                    System.err.println("Failed to clean file: " + vFile.getName() + " - " + ex.getMessage());
+                    return;
                 }
-            } catch (Exception ex) {
-                System.err.println("Error processing file: " + vFile.getName() + " - " + ex.getMessage());
+            } else {
+                fixedIssues = writer.add(vFile);
             }
 
-            processedFiles++;
-        }
+            if (fixedIssues > 0) {
+                cleanedFiles.incrementAndGet();
+                totalIssuesFixed.addAndGet(fixedIssues);
+            }
+        });
+
+        // Files already counted as cleaned are written even when canceled
+        writer.flush();
+
+        if (indicator.isCanceled()) return;
 
         // Show results
-        final int finalCleanedFiles = cleanedFiles;
-        final int finalTotalIssues = totalIssuesFixed;
+        final int finalCleanedFiles = cleanedFiles.get();
+        final int finalTotalIssues = totalIssuesFixed.get();
         final int finalProcessedFiles = processedFiles;
 
         com.intellij.openapi.application.ApplicationManager.getApplication().invokeLater(() -> {
@@ -13,8 +13,6 @@ import com.unicodecleaner.settings.UnicodeCleanerSettings;
 import com.unicodecleaner.utils.UnicodeDetector;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
-
 /**
  * Action to clean Unicode characters in selected text.
  */
@@ -53,12 +51,12 @@ public class CleanSelectedTextAction extends AnAction {
         UnicodeDetector detector = new UnicodeDetector();
 
         // Detect issues in selected text
-        List<UnicodeDetector.UnicodeIssue> issues = detector.detectIssues(
+        int issueCount = detector.countIssues(
             selectedText, 
-            settings.getEnabledCategories()
+            settings.getEnabledCategoryMask()
         );
 
-        if (issues.isEmpty()) {
+        if (issueCount == 0) {
             Messages.showMessageDialog(
                 project,
                 "No Unicode issues found in the selected text.",
@@ -74,7 +72,7 @@ public class CleanSelectedTextAction extends AnAction {
             String.format(
                 "Found %d Unicode issue(s) in the selected text.\n\n" +
                 "Do you want to clean them?",
-                issues.size()
+                issueCount
             ),
             "Unicode Cleaner",
             Messages.getQuestionIcon()
@@ -92,7 +90,7 @@ public class CleanSelectedTextAction extends AnAction {
                                   @NotNull UnicodeDetector detector,
                                   @NotNull UnicodeCleanerSettings settings) {
 
-        String cleanedText = detector.cleanText(selectedText, settings.getEnabledCategories());
+        String cleanedText = detector.cleanText(selectedText, settings.getEnabledCategoryMask());
         int removedChars = selectedText.length() - cleanedText.length();
 
         WriteCommandAction.runWriteCommandAction(project, () -> {
@@ -3,11 +3,13 @@ package com.unicodecleaner.actions;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowManager;
+import com.unicodecleaner.toolwindow.UnicodeIssuesToolWindowFactory;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * Action to show all Unicode issues in the project.
+ * Action to show all Unicode issues in the project in the Unicode Issues tool window.
  */
 public class ShowUnicodeIssuesAction extends AnAction {
 
@@ -16,16 +18,10 @@ public class ShowUnicodeIssuesAction extends AnAction {
         Project project = e.getProject();
         if (project == null) return;
 
-        // For now, show a simple dialog
-        // TODO: Implement a proper tool window to show Unicode issues
-        Messages.showMessageDialog(
-            project,
-            "Unicode Issues view is not yet implemented.\n\n" +
-            "Use 'Clean Unicode Characters in File' or 'Clean Unicode Characters in Project' " +
-            "to clean Unicode issues directly.",
-            "Unicode Issues",
-            Messages.getInformationIcon()
-        );
+        ToolWindow toolWindow = ToolWindowManager.getInstance(project).getToolWindow(UnicodeIssuesToolWindowFactory.ID);
+        if (toolWindow != null) {
+            toolWindow.activate(null);
+        }
     }
 
     @Override
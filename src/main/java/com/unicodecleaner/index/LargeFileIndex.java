@@ -0,0 +1,78 @@
+package com.unicodecleaner.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.PersistentFSConstants;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.indexing.ScalarIndexExtension;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Content-less index of the text files above the IDE's indexing size limit, which
+ * {@link UnicodeIssueIndex} cannot see. The size is checked when a file is indexed, so finding
+ * the files that must be scanned directly is an index lookup rather than a walk over the
+ * project. Contents are never read.
+ *
+ * <p>Content-less indexes are not updated on content changes, so a file that only grows past
+ * the limit after it was indexed is listed once it is indexed again. Clean Selected Files scans
+ * the selected files directly and is not affected.
+ */
+public final class LargeFileIndex extends ScalarIndexExtension<Integer> {
+
+    public static final ID<Integer, Void> NAME = ID.create("com.unicodecleaner.LargeFileIndex");
+
+    private static final int VERSION = 1;
+
+    // Single key, the index only records which files are large
+    private static final Integer LARGE = 0;
+
+    @Override
+    public @NotNull ID<Integer, Void> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull DataIndexer<Integer, Void, FileContent> getIndexer() {
+        return fileContent -> Collections.singletonMap(LARGE, null);
+    }
+
+    @Override
+    public @NotNull KeyDescriptor<Integer> getKeyDescriptor() {
+        return EnumeratorIntegerDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        // Reindex whenever the size limit changes
+        return VERSION * 31 + PersistentFSConstants.getMaxIntellisenseFileSize();
+    }
+
+    @Override
+    public @NotNull FileBasedIndex.InputFilter getInputFilter() {
+        return file -> !file.isDirectory() && !file.getFileType().isBinary()
+            && file.getLength() > PersistentFSConstants.getMaxIntellisenseFileSize();
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return false;
+    }
+
+    /**
+     * Returns the project files above the indexing size limit. Requires smart mode and a read
+     * action.
+     */
+    public static @NotNull Collection<VirtualFile> findLargeFiles(@NotNull Project project) {
+        return FileBasedIndex.getInstance().getContainingFiles(NAME, LARGE, GlobalSearchScope.projectScope(project));
+    }
+}
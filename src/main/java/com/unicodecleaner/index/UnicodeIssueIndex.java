@@ -0,0 +1,122 @@
+package com.unicodecleaner.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.unicodecleaner.services.IssueCounter;
+import com.unicodecleaner.utils.UnicodeDetector;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * File-based index of Unicode issue counts, keyed by category ordinal.
+ * Files are counted once at indexing time, so finding the files with issues in a project is
+ * an index lookup instead of a walk over every file. Clean files produce no keys at all.
+ *
+ * <p>Queries require smart mode and a read action. Files too large for the IDE to index have
+ * no entries; {@link #findFilesToScan} adds them from {@link LargeFileIndex} so that callers
+ * scan them instead.
+ */
+public final class UnicodeIssueIndex extends FileBasedIndexExtension<Integer, Integer> {
+
+    public static final ID<Integer, Integer> NAME = ID.create("com.unicodecleaner.UnicodeIssueIndex");
+
+    private static final int VERSION = 1;
+
+    @Override
+    public @NotNull ID<Integer, Integer> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull DataIndexer<Integer, Integer, FileContent> getIndexer() {
+        return fileContent -> {
+            int[] counts;
+            if (StandardCharsets.UTF_8.equals(fileContent.getFile().getCharset())) {
+                // Matches the raw bytes, pure ASCII files are rejected without decoding
+                byte[] bytes = fileContent.getContent();
+                int offset = CharsetToolkit.hasUTF8Bom(bytes) ? CharsetToolkit.UTF8_BOM.length : 0;
+                counts = IssueCounter.countByCategory(bytes, offset, bytes.length);
+            } else {
+                counts = IssueCounter.countByCategory(fileContent.getContentAsText());
+            }
+
+            Map<Integer, Integer> data = new HashMap<>();
+            for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+                if (counts[ordinal] > 0) {
+                    data.put(ordinal, counts[ordinal]);
+                }
+            }
+            return data;
+        };
+    }
+
+    @Override
+    public @NotNull KeyDescriptor<Integer> getKeyDescriptor() {
+        return EnumeratorIntegerDescriptor.INSTANCE;
+    }
+
+    @Override
+    public @NotNull DataExternalizer<Integer> getValueExternalizer() {
+        return EnumeratorIntegerDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        // Reindex whenever the character table changes
+        return VERSION * 31 + UnicodeDetector.getTableFingerprint();
+    }
+
+    @Override
+    public @NotNull FileBasedIndex.InputFilter getInputFilter() {
+        return file -> !file.getFileType().isBinary();
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * Returns the project files with at least one issue in a category of the mask.
+     */
+    public static @NotNull Set<VirtualFile> findFilesWithIssues(@NotNull Project project, int categoryMask) {
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+
+        Set<VirtualFile> files = new HashSet<>();
+        for (UnicodeDetector.CharacterCategory category : UnicodeDetector.CharacterCategory.values()) {
+            if ((categoryMask & category.getMask()) != 0) {
+                Collection<VirtualFile> containing = index.getContainingFiles(NAME, category.ordinal(), scope);
+                files.addAll(containing);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Returns the project files that may have issues in a category of the mask: the indexed
+     * files with issues, plus the files too large to be indexed, which must be scanned.
+     * Both come from index lookups, no project files are visited.
+     */
+    public static @NotNull Set<VirtualFile> findFilesToScan(@NotNull Project project, int categoryMask) {
+        Set<VirtualFile> files = findFilesWithIssues(project, categoryMask);
+        files.addAll(LargeFileIndex.findLargeFiles(project));
+        return files;
+    }
+}
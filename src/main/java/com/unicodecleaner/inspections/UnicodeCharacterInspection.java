@@ -1,6 +1,7 @@
 package com.unicodecleaner.inspections;
 
 import com.intellij.codeInspection.*;
+import com.intellij.lang.ASTNode;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.command.WriteCommandAction;
@@ -8,8 +9,12 @@ import com.intellij.openapi.editor.Document;
 import com.intellij.psi.*;
 import com.intellij.psi.impl.source.tree.LeafPsiElement;
 
+import com.unicodecleaner.services.DocumentIssueCache;
+import com.unicodecleaner.services.EditScriptApplier;
 import com.unicodecleaner.settings.UnicodeCleanerSettings;
+import com.unicodecleaner.utils.EditScript;
 import com.unicodecleaner.utils.UnicodeDetector;
+import com.unicodecleaner.vcs.ChangedRanges;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -21,6 +26,9 @@ import java.util.List;
  */
 public class UnicodeCharacterInspection extends LocalInspectionTool {
 
+    // Stateless, shared by all problems
+    private static final LocalQuickFix CLEAN_FILE_FIX = new CleanFileQuickFix();
+
     @Override
     public @NotNull String getShortName() {
         return "UnicodeCharacterIssues";
@@ -58,50 +66,147 @@ public class UnicodeCharacterInspection extends LocalInspectionTool {
     }
 
     @Override
-    public @NotNull PsiElementVisitor buildVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly) {
+    public ProblemDescriptor @Nullable [] checkFile(@NotNull PsiFile file,
+                                                    @NotNull InspectionManager manager,
+                                                    boolean isOnTheFly) {
         UnicodeCleanerSettings settings = UnicodeCleanerSettings.getInstance();
 
-        return new PsiElementVisitor() {
-            @Override
-            public void visitElement(@NotNull PsiElement element) {
-                super.visitElement(element);
+        // File-level checks are done once per file instead of once per element
+        if (!settings.shouldCheckFileType(file.getName()) || !isMainRoot(file)) {
+            return null;
+        }
 
-                // Check if this element type should be inspected
-                if (!shouldInspectElement(element, settings)) {
-                    return;
-                }
+        // The toggle only turns off editor highlighting, batch inspection runs still report
+        if (isOnTheFly && !settings.isRealTimeDetectionEnabled()) {
+            return null;
+        }
 
-                String text = element.getText();
-                if (text == null || text.isEmpty()) {
-                    return;
-                }
+        int categoryMask = settings.getEnabledCategoryMask();
 
-                List<UnicodeDetector.UnicodeIssue> issues = new UnicodeDetector()
-                        .detectIssues(text, settings.getEnabledCategories());
+        // In changed-lines mode only uncommitted lines are checked, null means the whole file
+        int[] ranges = settings.isChangedLinesOnlyEnabled() ? getChangedRanges(file) : null;
+        if (ranges != null && ranges.length == 0) {
+            return null;
+        }
 
-                for (UnicodeDetector.UnicodeIssue issue : issues) {
-                    registerProblem(holder, element, issue);
-                }
+        // Files above the size limit get a single file-level problem from a count-only scan
+        if (!settings.shouldInspectFile(file.getName(), file.getTextLength())) {
+            return reportIssueCount(file, manager, isOnTheFly, categoryMask, ranges);
+        }
+
+        List<UnicodeDetector.UnicodeIssue> issues = detectFileIssues(file, categoryMask, ranges);
+        if (issues.isEmpty()) {
+            return null;
+        }
+
+        ProblemsHolder holder = new ProblemsHolder(manager, file, isOnTheFly);
+        for (UnicodeDetector.UnicodeIssue issue : issues) {
+            // Map the issue back to the leaf element that contains it
+            PsiElement element = file.findElementAt(issue.startOffset);
+            if (element == null || !shouldInspectElement(element)) {
+                continue;
             }
-        };
+            registerProblem(holder, element, issue, element.getTextRange().getStartOffset());
+        }
+        return holder.getResultsArray();
+    }
+
+    /**
+     * Scans the file, or only the given ranges of it, once. Issues of a committed document
+     * come from the incrementally maintained document cache, otherwise the chars of the PSI
+     * tree are scanned in place.
+     */
+    private static List<UnicodeDetector.UnicodeIssue> detectFileIssues(@NotNull PsiFile file,
+                                                                       int categoryMask,
+                                                                       int @Nullable [] ranges) {
+        PsiDocumentManager documentManager = PsiDocumentManager.getInstance(file.getProject());
+        Document document = documentManager.getDocument(file);
+        if (document != null && documentManager.isCommitted(document)) {
+            if (ranges == null) {
+                return DocumentIssueCache.getIssues(document, categoryMask);
+            }
+            List<UnicodeDetector.UnicodeIssue> issues = new ArrayList<>();
+            for (int r = 0; r < ranges.length; r += 2) {
+                issues.addAll(DocumentIssueCache.getIssues(document, ranges[r], ranges[r + 1], categoryMask));
+            }
+            return issues;
+        }
+
+        CharSequence chars = getPsiChars(file);
+        UnicodeDetector detector = new UnicodeDetector();
+        return ranges == null ? detector.detectIssues(chars, categoryMask) : detector.detectIssues(chars, ranges, categoryMask);
+    }
+
+    /**
+     * Returns the lines changed since the last commit, or {@code null} to check the whole file.
+     * Line ranges refer to the document, which matches the PSI only once it is committed.
+     */
+    private static int @Nullable [] getChangedRanges(@NotNull PsiFile file) {
+        PsiDocumentManager documentManager = PsiDocumentManager.getInstance(file.getProject());
+        Document document = documentManager.getDocument(file);
+        if (document == null || !documentManager.isCommitted(document)) {
+            return null;
+        }
+        return ChangedRanges.getKnownRanges(file.getProject(), document);
     }
 
-    private boolean shouldInspectElement(PsiElement element, UnicodeCleanerSettings settings) {
-        // Check file extension
-        String fileName = element.getContainingFile().getName();
-        if (!settings.shouldCheckFileType(fileName)) {
-            return false;
+    /**
+     * Reports how many issues a file has without highlighting them one by one, which keeps
+     * the editor responsive on very large files. No issue objects or snapshot are created.
+     */
+    private static ProblemDescriptor @Nullable [] reportIssueCount(@NotNull PsiFile file,
+                                                                   @NotNull InspectionManager manager,
+                                                                   boolean isOnTheFly,
+                                                                   int categoryMask,
+                                                                   int @Nullable [] ranges) {
+        UnicodeDetector detector = new UnicodeDetector();
+        int count = ranges == null
+                ? detector.countIssues(getPsiChars(file), categoryMask)
+                : detector.countIssues(getPsiChars(file), ranges, categoryMask);
+        if (count == 0) {
+            return null;
         }
 
+        String description = String.format(
+                "File contains %d problematic Unicode character(s); " +
+                        "it is too large to highlight them individually",
+                count
+        );
+        ProblemDescriptor problem = manager.createProblemDescriptor(
+                file,
+                description,
+                isOnTheFly,
+                new LocalQuickFix[]{CLEAN_FILE_FIX},
+                ProblemHighlightType.WARNING
+        );
+        return new ProblemDescriptor[]{problem};
+    }
+
+    private static @NotNull CharSequence getPsiChars(@NotNull PsiFile file) {
+        ASTNode node = file.getNode();
+        return node != null ? node.getChars() : file.getText();
+    }
+
+    /**
+     * Files with several languages have one PSI root per language over the same text;
+     * only the base language root is inspected so issues are not reported twice.
+     */
+    private static boolean isMainRoot(@NotNull PsiFile file) {
+        FileViewProvider viewProvider = file.getViewProvider();
+        return viewProvider.getPsi(viewProvider.getBaseLanguage()) == file;
+    }
+
+    private static boolean shouldInspectElement(PsiElement element) {
         // Check element types
         return element instanceof PsiPlainText ||
                 element instanceof PsiComment ||
                 element instanceof LeafPsiElement;
     }
 
-    private void registerProblem(@NotNull ProblemsHolder holder,
+    private static void registerProblem(@NotNull ProblemsHolder holder,
                                  @NotNull PsiElement element,
-                                 @NotNull UnicodeDetector.UnicodeIssue issue) {
+                                 @NotNull UnicodeDetector.UnicodeIssue issue,
+                                 int elementOffset) {
 
         UnicodeDetector.CharacterInfo charInfo = issue.characterInfo;
 
@@ -112,9 +217,10 @@ public class UnicodeCharacterInspection extends LocalInspectionTool {
                 charInfo.description
         );
 
+        // Problem ranges are relative to the element
         TextRange range = new TextRange(
-                issue.startOffset,
-                issue.endOffset
+                issue.startOffset - elementOffset,
+                issue.endOffset - elementOffset
         );
 
         // Create quick fixes
@@ -124,7 +230,7 @@ public class UnicodeCharacterInspection extends LocalInspectionTool {
         fixes.add(new UnicodeQuickFix(charInfo));
 
         // File-wide fix
-        fixes.add(new CleanFileQuickFix());
+        fixes.add(CLEAN_FILE_FIX);
 
         // Category-wide fix
         fixes.add(new CleanCategoryQuickFix(charInfo.category));
@@ -175,7 +281,7 @@ public class UnicodeCharacterInspection extends LocalInspectionTool {
             }
 
             String newText = text.replace(
-                    String.valueOf(characterInfo.character),
+                    characterInfo.getText(),
                     characterInfo.replacement
             );
 
@@ -205,14 +311,7 @@ public class UnicodeCharacterInspection extends LocalInspectionTool {
             }
 
             PsiFile file = element.getContainingFile();
-            String originalText = file.getText();
-
-            UnicodeDetector detector = new UnicodeDetector();
-            String cleanedText = detector.cleanText(originalText);
-
-            if (!originalText.equals(cleanedText)) {
-                replaceFileContent(file, cleanedText);
-            }
+            applyFileEdits(file, UnicodeDetector.ALL_CATEGORIES_MASK);
         }
     }
 
@@ -244,15 +343,7 @@ public class UnicodeCharacterInspection extends LocalInspectionTool {
             }
 
             PsiFile file = element.getContainingFile();
-            String originalText = file.getText();
-
-            UnicodeDetector detector = new UnicodeDetector();
-            String cleanedText = detector.cleanText(originalText,
-                    java.util.Set.of(category));
-
-            if (!originalText.equals(cleanedText)) {
-                replaceFileContent(file, cleanedText);
-            }
+            applyFileEdits(file, category.getMask());
         }
     }
 
@@ -278,32 +369,22 @@ public class UnicodeCharacterInspection extends LocalInspectionTool {
     }
 
     /**
-     * Helper method to replace entire file content safely.
+     * Helper method to clean the given categories in a file with targeted document edits.
      */
-    private static void replaceFileContent(@NotNull PsiFile file, @NotNull String newContent) {
+    private static void applyFileEdits(@NotNull PsiFile file, int categoryMask) {
         Project project = file.getProject();
 
         WriteCommandAction.runWriteCommandAction(project, () -> {
             try {
                 Document document = PsiDocumentManager.getInstance(project).getDocument(file);
                 if (document != null) {
-                    document.setText(newContent);
+                    EditScript edits = new UnicodeDetector().computeEdits(document.getImmutableCharSequence(), categoryMask);
+                    EditScriptApplier.apply(document, edits);
                     PsiDocumentManager.getInstance(project).commitDocument(document);
                 }
             } catch (Exception e) {
-                // Fallback: recreate file content
-                try {
-                    PsiFileFactory factory = PsiFileFactory.getInstance(project);
-                    PsiFile newFile = factory.createFileFromText(
-                            file.getName(),
-                            file.getFileType(),
-                            newContent
-                    );
-                    file.getNode().replaceAllChildrenToChildrenOf(newFile.getNode());
-                } catch (Exception ex) {
-                    // Log error or show notification
-                    System.err.println("Failed to replace file content: " + ex.getMessage());
-                }
+                // Log error or show notification
+                System.err.println("Failed to clean file content: " + e.getMessage());
             }
         });
     }
@@ -0,0 +1,158 @@
+package com.unicodecleaner.services;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.unicodecleaner.utils.EditScript;
+import com.unicodecleaner.utils.UnicodeDetector;
+import com.unicodecleaner.vcs.ChangedRanges;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Writes cleaned documents back in batches instead of one write command per file.
+ * Files are queued from a background thread, where their documents are loaded and their edit
+ * scripts computed under a read action. Each batch then costs the EDT a single write command
+ * that applies edits until the batch is done or the time budget is spent, and yields between
+ * slices so the UI keeps responding. All commands of one writer share a command group, so the
+ * whole run is undone in one step.
+ *
+ * <p>In changed-lines mode only the lines changed since the last commit are cleaned.
+ *
+ * <p>Documents are not committed per file; the platform commits them after the write action.
+ * Not thread-safe: {@link #add} and {@link #flush} must be called from the same background thread.
+ */
+public final class BatchedDocumentWriter {
+
+    private static final class PendingEdit {
+        final VirtualFile file;
+        final Document document;
+        final long modificationStamp;
+        final EditScript edits;
+        /** Changed lines the edits are limited to, or {@code null} for the whole document. */
+        final int[] ranges;
+
+        PendingEdit(VirtualFile file, Document document, long modificationStamp, EditScript edits, int[] ranges) {
+            this.file = file;
+            this.document = document;
+            this.modificationStamp = modificationStamp;
+            this.edits = edits;
+            this.ranges = ranges;
+        }
+    }
+
+    private final Project project;
+    private final String commandName;
+    private final String groupId;
+    private final int categoryMask;
+    private final int batchSize;
+    private final long timeBudgetNanos;
+    private final boolean changedLinesOnly;
+    private final UnicodeDetector detector = new UnicodeDetector();
+    private final Queue<PendingEdit> pending = new ArrayDeque<>();
+
+    public BatchedDocumentWriter(@NotNull Project project,
+                                 @NotNull String commandName,
+                                 int categoryMask,
+                                 int batchSize,
+                                 long timeBudgetMs,
+                                 boolean changedLinesOnly) {
+        this.project = project;
+        this.commandName = commandName;
+        this.groupId = "UnicodeCleaner.BatchedWrite." + System.identityHashCode(this);
+        this.categoryMask = categoryMask;
+        this.batchSize = Math.max(1, batchSize);
+        this.timeBudgetNanos = Math.max(1, timeBudgetMs) * 1_000_000L;
+        this.changedLinesOnly = changedLinesOnly;
+    }
+
+    /**
+     * Queues a file for cleaning, writes a batch once enough files are pending and returns the
+     * number of issues that will be fixed in the file.
+     */
+    public int add(@NotNull VirtualFile file) {
+        Document document = ReadAction.compute(() -> FileDocumentManager.getInstance().getDocument(file));
+        if (document == null) {
+            return 0;
+        }
+
+        // Computed outside the read action below, it may load the last committed revision
+        int[] ranges = changedLinesOnly ? ChangedRanges.computeRanges(project, document, getIndicator()) : null;
+
+        int[] issueCount = new int[1];
+        PendingEdit edit = ReadAction.compute(() -> {
+            CharSequence text = document.getImmutableCharSequence();
+            int[] scope = ranges != null ? ranges : ChangedRanges.whole(text);
+            EditScript edits = detector.computeEdits(text, scope, categoryMask);
+            if (edits.isEmpty()) {
+                return null;
+            }
+            issueCount[0] = edits.getIssueCount();
+            return new PendingEdit(file, document, document.getModificationStamp(), edits, ranges);
+        });
+
+        if (edit != null) {
+            pending.add(edit);
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+        return issueCount[0];
+    }
+
+    /**
+     * Writes every pending file, blocking until done.
+     */
+    public void flush() {
+        while (!pending.isEmpty()) {
+            ApplicationManager.getApplication().invokeAndWait(this::writeSlice, ModalityState.defaultModalityState());
+        }
+    }
+
+    private void writeSlice() {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        WriteCommandAction.writeCommandAction(project)
+            .withName(commandName)
+            .withGroupId(groupId)
+            .withGlobalUndo()
+            .run(() -> {
+                // At least one file per slice, so a tiny budget still makes progress
+                do {
+                    write(pending.poll());
+                } while (!pending.isEmpty() && System.nanoTime() < deadline);
+            });
+    }
+
+    private static @NotNull ProgressIndicator getIndicator() {
+        ProgressIndicator indicator = ProgressManager.getGlobalProgressIndicator();
+        return indicator != null ? indicator : new EmptyProgressIndicator();
+    }
+
+    private void write(@NotNull PendingEdit edit) {
+        try {
+            EditScript edits = edit.edits;
+            if (edit.document.getModificationStamp() != edit.modificationStamp) {
+                if (edit.ranges != null) {
+                    // The changed lines moved with the edit, leave the file alone
+                    System.err.println("File changed while cleaning, not cleaned: " + edit.file.getName());
+                    return;
+                }
+                // Edited since the script was computed, compute it again from the current text
+                edits = detector.computeEdits(edit.document.getImmutableCharSequence(), categoryMask);
+            }
+            EditScriptApplier.apply(edit.document, edits);
+        } catch (Exception ex) {
+            System.err.println("Failed to clean file: " + edit.file.getName() + " - " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.unicodecleaner.services;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.editor.event.DocumentListener;
+import com.intellij.openapi.util.Key;
+import com.unicodecleaner.utils.IssueSnapshot;
+import com.unicodecleaner.utils.UnicodeDetector;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Keeps the issues of each inspected document up to date incrementally.
+ * The first request scans the whole document and stores the result in the document's user
+ * data; every later change only rescans the edited span, updating the snapshot in place.
+ * The snapshot is tagged with the document modification stamp, and a document whose stamp
+ * no longer matches (a change the listener did not see) is scanned from scratch.
+ *
+ * <p>Registered as an {@code editorFactoryDocumentListener}, so it sees the changes of every
+ * document. Documents that were never inspected carry no snapshot and cost a single user data
+ * lookup per change.
+ */
+public final class DocumentIssueCache implements DocumentListener {
+
+    private static final Key<Entry> ISSUES_KEY = Key.create("unicode.cleaner.document.issues");
+
+    private static final class Entry {
+        final long modificationStamp;
+        final IssueSnapshot snapshot;
+
+        Entry(long modificationStamp, IssueSnapshot snapshot) {
+            this.modificationStamp = modificationStamp;
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Returns the issues of the categories in the mask that start in {@code [from, to)}.
+     * Must be called in a read action.
+     */
+    public static @NotNull List<UnicodeDetector.UnicodeIssue> getIssues(@NotNull Document document,
+                                                                       int from, int to, int categoryMask) {
+        CharSequence text = document.getImmutableCharSequence();
+        return getSnapshot(document).getIssues(text, from, to, categoryMask);
+    }
+
+    /**
+     * Returns the issues of the categories in the mask in the whole document.
+     * Must be called in a read action.
+     */
+    public static @NotNull List<UnicodeDetector.UnicodeIssue> getIssues(@NotNull Document document, int categoryMask) {
+        return getIssues(document, 0, document.getTextLength(), categoryMask);
+    }
+
+    /**
+     * Returns the first {@code limit} issues of the categories in the mask in the whole
+     * document. Must be called in a read action.
+     */
+    public static @NotNull List<UnicodeDetector.UnicodeIssue> getIssues(@NotNull Document document,
+                                                                       int categoryMask, int limit) {
+        CharSequence text = document.getImmutableCharSequence();
+        return getSnapshot(document).getIssues(text, 0, text.length(), categoryMask, limit);
+    }
+
+    /**
+     * Counts the issues of the categories in the mask in the whole document without creating
+     * issue objects. Must be called in a read action.
+     */
+    public static int countIssues(@NotNull Document document, int categoryMask) {
+        return getSnapshot(document).countIssues(0, document.getTextLength(), categoryMask);
+    }
+
+    private static @NotNull IssueSnapshot getSnapshot(@NotNull Document document) {
+        long stamp = document.getModificationStamp();
+        Entry entry = document.getUserData(ISSUES_KEY);
+        if (entry != null && entry.modificationStamp == stamp) {
+            return entry.snapshot;
+        }
+
+        IssueSnapshot snapshot = IssueSnapshot.scan(document.getImmutableCharSequence());
+        document.putUserData(ISSUES_KEY, new Entry(stamp, snapshot));
+        return snapshot;
+    }
+
+    @Override
+    public void documentChanged(@NotNull DocumentEvent event) {
+        Document document = event.getDocument();
+        Entry entry = document.getUserData(ISSUES_KEY);
+        if (entry == null) {
+            return;
+        }
+
+        if (entry.modificationStamp != event.getOldTimeStamp()) {
+            // Missed a change, the next request rescans the whole document
+            document.putUserData(ISSUES_KEY, null);
+            return;
+        }
+
+        // Runs in the write action, so no reader sees the snapshot while it changes
+        entry.snapshot.update(document.getImmutableCharSequence(),
+                event.getOffset(), event.getOldLength(), event.getNewLength());
+        document.putUserData(ISSUES_KEY, new Entry(document.getModificationStamp(), entry.snapshot));
+    }
+}
@@ -0,0 +1,44 @@
+package com.unicodecleaner.services;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.util.DocumentUtil;
+import com.unicodecleaner.utils.EditScript;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Applies detector edit scripts to documents as targeted replacements.
+ * Unlike {@code Document.setText}, only the affected ranges change, so PSI outside them,
+ * folding, markers and caret positions survive and the file is reparsed incrementally.
+ */
+public final class EditScriptApplier {
+
+    // Above this many edits the document is switched to bulk mode for the batch
+    private static final int BULK_UPDATE_THRESHOLD = 100;
+
+    private EditScriptApplier() {
+    }
+
+    /**
+     * Applies the script to the document. Must be called inside a write command, and the
+     * script must have been computed from the document's current text.
+     */
+    public static void apply(@NotNull Document document, @NotNull EditScript script) {
+        if (script.isEmpty()) {
+            return;
+        }
+
+        Runnable task = () -> {
+            // Back to front, so offsets of the remaining edits stay valid
+            for (int i = script.size() - 1; i >= 0; i--) {
+                int offset = script.getOffset(i);
+                document.replaceString(offset, offset + script.getLength(i), script.getReplacement(i));
+            }
+        };
+
+        if (script.size() > BULK_UPDATE_THRESHOLD) {
+            DocumentUtil.executeInBulk(document, task);
+        } else {
+            task.run();
+        }
+    }
+}
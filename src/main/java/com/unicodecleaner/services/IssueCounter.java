@@ -0,0 +1,50 @@
+package com.unicodecleaner.services;
+
+import com.unicodecleaner.utils.UnicodeDetector;
+import com.unicodecleaner.utils.Utf8Scanner;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Counts issues per category, the shape in which scan results are cached and indexed.
+ * Counts are indexed by {@link UnicodeDetector.CharacterCategory#ordinal()} and always cover
+ * every category, so any category mask can be answered from them later.
+ */
+public final class IssueCounter {
+
+    private IssueCounter() {
+    }
+
+    /**
+     * Counts the issues of every category in UTF-8 bytes, without decoding them.
+     */
+    public static int[] countByCategory(@NotNull byte[] utf8, int from, int to) {
+        int[] counts = newCounts();
+        Utf8Scanner.scan(utf8, from, to, UnicodeDetector.ALL_CATEGORIES_MASK,
+                (byteOffset, charOffset, info) -> counts[info.category.ordinal()]++);
+        return counts;
+    }
+
+    /**
+     * Counts the issues of every category in decoded text.
+     */
+    public static int[] countByCategory(@NotNull CharSequence text) {
+        return new UnicodeDetector().countByCategory(text, UnicodeDetector.ALL_CATEGORIES_MASK);
+    }
+
+    /**
+     * Sums the counts of the categories in the mask.
+     */
+    public static int countIssues(@NotNull int[] categoryCounts, int categoryMask) {
+        int count = 0;
+        for (int ordinal = 0; ordinal < categoryCounts.length; ordinal++) {
+            if ((categoryMask & (1 << ordinal)) != 0) {
+                count += categoryCounts[ordinal];
+            }
+        }
+        return count;
+    }
+
+    static int[] newCounts() {
+        return new int[UnicodeDetector.CharacterCategory.values().length];
+    }
+}
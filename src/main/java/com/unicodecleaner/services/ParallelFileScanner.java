@@ -0,0 +1,193 @@
+package com.unicodecleaner.services;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.unicodecleaner.settings.UnicodeCleanerSettings;
+import com.unicodecleaner.utils.UnicodeDetector;
+import com.unicodecleaner.utils.WindowedFileScanner;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Scans many files for Unicode issues on a bounded worker pool.
+ * Files are read straight from their {@link VirtualFile} bytes without building PSI or
+ * documents, and UTF-8 files are matched on the bytes without decoding them. UTF-8 files above
+ * the configured maximum file size are read window by window instead of loaded whole.
+ * Only files with unsaved editor changes are read from their document, in a non-blocking read
+ * action. Files with issues are handed one at a time to a single consumer on the calling
+ * thread, so the consumer can safely run write commands and is the only stage that touches
+ * documents. Results for unchanged files come from the {@link ScanResultCache}.
+ */
+public final class ParallelFileScanner {
+
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final Project project;
+    private final int categoryMask;
+    private final long maxFileSizeBytes;
+    private final UnicodeDetector detector = new UnicodeDetector();
+
+    /**
+     * Detection result for a file with at least one issue.
+     */
+    public static final class ScanResult {
+        public final VirtualFile file;
+        public final int issueCount;
+        /** Issue counts per category ordinal, zero for categories outside the scanned mask. */
+        public final int[] categoryCounts;
+
+        ScanResult(VirtualFile file, int issueCount, int[] categoryCounts) {
+            this.file = file;
+            this.issueCount = issueCount;
+            this.categoryCounts = categoryCounts;
+        }
+    }
+
+    public ParallelFileScanner(@NotNull Project project, int categoryMask) {
+        this.project = project;
+        this.categoryMask = categoryMask;
+        this.maxFileSizeBytes = UnicodeCleanerSettings.getInstance().getMaxFileSizeKB() * 1024L;
+    }
+
+    /**
+     * Scans the files and passes each file with issues to the consumer on the calling thread.
+     * Progress text shows the scan throughput. Returns the number of files scanned, which is
+     * less than the number of files if the indicator was canceled.
+     */
+    public int scan(@NotNull List<VirtualFile> files,
+                    @NotNull ProgressIndicator indicator,
+                    @NotNull Consumer<ScanResult> consumer) {
+
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor(
+                "Unicode Cleaner Scanner", parallelism);
+
+        BlockingQueue<ScanResult> results = new LinkedBlockingQueue<>();
+        AtomicInteger scanned = new AtomicInteger();
+
+        for (VirtualFile file : files) {
+            executor.execute(() -> {
+                try {
+                    if (indicator.isCanceled()) {
+                        return;
+                    }
+                    int[] categoryCounts = countIssuesByCategory(file, indicator);
+                    int issueCount = IssueCounter.countIssues(categoryCounts, categoryMask);
+                    if (issueCount > 0) {
+                        results.add(new ScanResult(file, issueCount, categoryCounts));
+                    }
+                } catch (ProcessCanceledException ignored) {
+                    // Canceled by the user, the writer loop below stops
+                } catch (Exception ex) {
+                    System.err.println("Error scanning file: " + file.getName() + " - " + ex.getMessage());
+                } finally {
+                    scanned.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+
+        long start = System.nanoTime();
+        int total = files.size();
+        try {
+            while (!indicator.isCanceled()) {
+                int done = scanned.get();
+                ScanResult result = results.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (result != null) {
+                    consumer.accept(result);
+                } else if (done == total) {
+                    break;
+                }
+                updateProgress(indicator, scanned.get(), total, start);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (indicator.isCanceled()) {
+                executor.shutdownNow();
+            }
+        }
+
+        return scanned.get();
+    }
+
+    private int[] countIssuesByCategory(@NotNull VirtualFile file, @NotNull ProgressIndicator indicator) throws IOException {
+        if (!file.isValid() || file.getFileType().isBinary()) {
+            return IssueCounter.newCounts();
+        }
+
+        // Unsaved editor changes win over the content on disk
+        FileDocumentManager documentManager = FileDocumentManager.getInstance();
+        Document document = documentManager.getCachedDocument(file);
+        if (document != null && documentManager.isDocumentUnsaved(document)) {
+            return ReadAction.nonBlocking(() -> detector.countByCategory(document.getImmutableCharSequence(), categoryMask))
+                    .wrapProgress(indicator)
+                    .executeSynchronously();
+        }
+
+        // Content on disk: reuse the result of an earlier scan if the file did not change
+        ScanResultCache cache = ScanResultCache.getInstance(project);
+        int[] categoryCounts = cache.get(file);
+        if (categoryCounts == null) {
+            categoryCounts = countByCategory(file);
+            cache.put(file, categoryCounts);
+        }
+        // Cached counts cover every category and are shared, keep only the scanned ones
+        int[] counts = IssueCounter.newCounts();
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if ((categoryMask & (1 << ordinal)) != 0) {
+                counts[ordinal] = categoryCounts[ordinal];
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the issues of every category in the file content on disk, so the result can be
+     * cached independently of the enabled categories.
+     */
+    private int[] countByCategory(@NotNull VirtualFile file) throws IOException {
+        Charset charset = file.getCharset();
+        if (StandardCharsets.UTF_8.equals(charset) && file.isInLocalFileSystem()
+                && file.getLength() > maxFileSizeBytes) {
+            // Too large to load, stream it through a fixed-size window instead
+            int[] counts = IssueCounter.newCounts();
+            new WindowedFileScanner(UnicodeDetector.ALL_CATEGORIES_MASK).scan(file.toNioPath(),
+                    (byteOffset, charOffset, info) -> counts[info.category.ordinal()]++);
+            return counts;
+        }
+
+        byte[] bytes = file.contentsToByteArray();
+        byte[] bom = file.getBOM();
+        int offset = bom != null && bytes.length >= bom.length ? bom.length : 0;
+
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            // Matches the raw bytes, pure ASCII files are rejected without decoding
+            return IssueCounter.countByCategory(bytes, offset, bytes.length);
+        }
+        return IssueCounter.countByCategory(new String(bytes, offset, bytes.length - offset, charset));
+    }
+
+    private static void updateProgress(@NotNull ProgressIndicator indicator, int done, int total, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        indicator.setFraction(total == 0 ? 1 : (double) done / total);
+        indicator.setText2(String.format("Scanned %d of %d files (%.0f files/s)",
+                done, total, seconds > 0 ? done / seconds : 0));
+    }
+}
@@ -0,0 +1,197 @@
+package com.unicodecleaner.services;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.Alarm;
+import com.unicodecleaner.utils.UnicodeDetector;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistent per-file scan results, so repeated project scans only rescan modified files.
+ * Entries are keyed by file path and validated against the file's timestamp and length.
+ * Each entry stores the issue count of every category, so results stay valid when the enabled
+ * categories change and any category mask can be answered from them. The whole cache is
+ * dropped when the character table changes.
+ *
+ * <p>Results describe the content on disk; callers must bypass the cache for files with
+ * unsaved document changes.
+ *
+ * <p>Scanning never writes the cache file. The first change after a save schedules the next
+ * save {@link #SAVE_DELAY_MS} later, so a run of rescans costs one write, and the cache is
+ * saved once more when the project closes.
+ */
+public final class ScanResultCache implements Disposable {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String CACHE_FILE = "scan-results.bin";
+    private static final int SAVE_DELAY_MS = 60_000;
+
+    private static final int[] CLEAN = new int[UnicodeDetector.CharacterCategory.values().length];
+
+    private final Path cacheFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final Alarm saveAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
+    private volatile boolean loaded;
+
+    private static final class Entry {
+        final long timeStamp;
+        final long length;
+        final int[] categoryCounts;
+
+        Entry(long timeStamp, long length, int[] categoryCounts) {
+            this.timeStamp = timeStamp;
+            this.length = length;
+            this.categoryCounts = categoryCounts;
+        }
+    }
+
+    public ScanResultCache(@NotNull Project project) {
+        this.cacheFile = ProjectUtil.getProjectCachePath(project, "unicode-cleaner").resolve(CACHE_FILE);
+    }
+
+    public static ScanResultCache getInstance(@NotNull Project project) {
+        return project.getService(ScanResultCache.class);
+    }
+
+    /**
+     * Returns the cached issue counts per category ordinal, or {@code null} if the file is not
+     * cached or changed on disk since it was scanned. The returned array must not be modified.
+     */
+    public @Nullable int[] get(@NotNull VirtualFile file) {
+        ensureLoaded();
+        Entry entry = entries.get(file.getPath());
+        if (entry == null || entry.timeStamp != file.getTimeStamp() || entry.length != file.getLength()) {
+            return null;
+        }
+        return entry.categoryCounts;
+    }
+
+    /**
+     * Stores the issue counts per category ordinal of a file scanned from disk.
+     */
+    public void put(@NotNull VirtualFile file, @NotNull int[] categoryCounts) {
+        ensureLoaded();
+        int[] counts = isClean(categoryCounts) ? CLEAN : categoryCounts.clone();
+        entries.put(file.getPath(), new Entry(file.getTimeStamp(), file.getLength(), counts));
+        markDirty();
+    }
+
+    /**
+     * Writes the cache to disk if it changed since it was loaded or last saved.
+     */
+    public synchronized void save() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+
+        // Snapshot first, scanner threads may still be adding entries
+        List<Map.Entry<String, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path temp = cacheFile.resolveSibling(CACHE_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(UnicodeDetector.getTableFingerprint());
+                out.writeInt(CLEAN.length);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> e : snapshot) {
+                    Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.timeStamp);
+                    out.writeLong(entry.length);
+                    boolean clean = entry.categoryCounts == CLEAN;
+                    out.writeBoolean(clean);
+                    if (!clean) {
+                        for (int count : entry.categoryCounts) {
+                            out.writeInt(count);
+                        }
+                    }
+                }
+            }
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            System.err.println("Failed to save Unicode scan cache: " + ex.getMessage());
+        }
+    }
+
+    @Override
+    public void dispose() {
+        save();
+    }
+
+    private void markDirty() {
+        if (dirty.compareAndSet(false, true) && !saveAlarm.isDisposed()) {
+            saveAlarm.addRequest(this::save, SAVE_DELAY_MS);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    private synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!Files.exists(cacheFile)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != FORMAT_VERSION
+                    || in.readInt() != UnicodeDetector.getTableFingerprint()
+                    || in.readInt() != CLEAN.length) {
+                markDirty(); // stale, overwritten on the next save
+                return;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String path = in.readUTF();
+                long timeStamp = in.readLong();
+                long length = in.readLong();
+                int[] counts = CLEAN;
+                if (!in.readBoolean()) {
+                    counts = new int[CLEAN.length];
+                    for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+                        counts[ordinal] = in.readInt();
+                    }
+                }
+                entries.put(path, new Entry(timeStamp, length, counts));
+            }
+        } catch (IOException ex) {
+            entries.clear();
+            markDirty();
+            System.err.println("Failed to load Unicode scan cache: " + ex.getMessage());
+        }
+    }
+
+    private static boolean isClean(int[] categoryCounts) {
+        for (int count : categoryCounts) {
+            if (count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -19,6 +19,7 @@ public class UnicodeCleanerConfigurable implements Configurable {
     private JPanel mainPanel;
     private Map<UnicodeDetector.CharacterCategory, JCheckBox> categoryCheckboxes;
     private JTextField extensionsField;
+    private JCheckBox changedLinesOnlyCheckbox;
 
     @Nls(capitalization = Nls.Capitalization.Title)
     @Override
@@ -82,6 +83,23 @@ public class UnicodeCleanerConfigurable implements Configurable {
         extensionsField.setToolTipText("Comma-separated list of file extensions (e.g., txt,md,java,js)");
         settingsPanel.add(extensionsField, gbc);
         
+        // Scope section
+        gbc.gridx = 0;
+        gbc.gridy = row++;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.NONE;
+        gbc.weightx = 0;
+        gbc.insets = new Insets(20, 0, 10, 0);
+        settingsPanel.add(new JLabel("<html><h3>Scope</h3></html>"), gbc);
+        
+        gbc.gridx = 0;
+        gbc.gridy = row++;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(2, 20, 2, 0);
+        changedLinesOnlyCheckbox = new JCheckBox("Only check and clean lines changed since the last commit");
+        changedLinesOnlyCheckbox.setToolTipText("Files under version control are limited to their uncommitted changes");
+        settingsPanel.add(changedLinesOnlyCheckbox, gbc);
+        
         // Add some vertical glue to push everything to the top
         gbc.gridx = 0;
         gbc.gridy = row;
@@ -110,12 +128,15 @@ public class UnicodeCleanerConfigurable implements Configurable {
         if (categoryCheckboxes.get(UnicodeDetector.CharacterCategory.PUNCTUATION).isSelected() != settings.isPunctuationEnabled()) return true;
         if (categoryCheckboxes.get(UnicodeDetector.CharacterCategory.FULL_WIDTH).isSelected() != settings.isFullWidthEnabled()) return true;
         if (categoryCheckboxes.get(UnicodeDetector.CharacterCategory.VARIATION).isSelected() != settings.isVariationEnabled()) return true;
+        if (categoryCheckboxes.get(UnicodeDetector.CharacterCategory.MATH_ALPHANUMERIC).isSelected() != settings.isMathAlphanumericEnabled()) return true;
         
         // Check extensions field
         String currentExtensions = String.join(",", settings.getEnabledExtensions());
         String fieldExtensions = extensionsField.getText().trim();
         if (!currentExtensions.equals(fieldExtensions)) return true;
         
+        if (changedLinesOnlyCheckbox.isSelected() != settings.isChangedLinesOnlyEnabled()) return true;
+        
         return false;
     }
 
@@ -131,6 +152,7 @@ public class UnicodeCleanerConfigurable implements Configurable {
         settings.setPunctuationEnabled(categoryCheckboxes.get(UnicodeDetector.CharacterCategory.PUNCTUATION).isSelected());
         settings.setFullWidthEnabled(categoryCheckboxes.get(UnicodeDetector.CharacterCategory.FULL_WIDTH).isSelected());
         settings.setVariationEnabled(categoryCheckboxes.get(UnicodeDetector.CharacterCategory.VARIATION).isSelected());
+        settings.setMathAlphanumericEnabled(categoryCheckboxes.get(UnicodeDetector.CharacterCategory.MATH_ALPHANUMERIC).isSelected());
         
         // Apply extensions
         String extensionsText = extensionsField.getText().trim();
@@ -144,6 +166,8 @@ public class UnicodeCleanerConfigurable implements Configurable {
             }
             settings.setEnabledExtensions(extensions);
         }
+        
+        settings.setChangedLinesOnlyEnabled(changedLinesOnlyCheckbox.isSelected());
     }
 
     @Override
@@ -158,9 +182,12 @@ public class UnicodeCleanerConfigurable implements Configurable {
         categoryCheckboxes.get(UnicodeDetector.CharacterCategory.PUNCTUATION).setSelected(settings.isPunctuationEnabled());
         categoryCheckboxes.get(UnicodeDetector.CharacterCategory.FULL_WIDTH).setSelected(settings.isFullWidthEnabled());
         categoryCheckboxes.get(UnicodeDetector.CharacterCategory.VARIATION).setSelected(settings.isVariationEnabled());
+        categoryCheckboxes.get(UnicodeDetector.CharacterCategory.MATH_ALPHANUMERIC).setSelected(settings.isMathAlphanumericEnabled());
         
         // Load extensions
         String extensions = String.join(",", settings.getEnabledExtensions());
         extensionsField.setText(extensions);
+        
+        changedLinesOnlyCheckbox.setSelected(settings.isChangedLinesOnlyEnabled());
     }
 }
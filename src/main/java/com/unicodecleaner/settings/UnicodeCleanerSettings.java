@@ -29,6 +29,7 @@ public class UnicodeCleanerSettings implements PersistentStateComponent<UnicodeC
         public boolean enablePunctuation = true;
         public boolean enableFullWidth = true;
         public boolean enableVariation = true;
+        public boolean enableMathAlphanumeric = true;
         
         // File type settings
         public Set<String> enabledExtensions = new HashSet<>(Arrays.asList(
@@ -41,10 +42,13 @@ public class UnicodeCleanerSettings implements PersistentStateComponent<UnicodeC
         public boolean blockCommitsWithIssues = false;
         public boolean autoFixBeforeCommit = false;
         public boolean showCommitSummary = true;
+        public boolean changedLinesOnly = false; // only lines changed since the last commit
         
         // Performance settings
         public int maxFileSizeKB = 10240; // 10MB
         public boolean enableRealTimeDetection = true;
+        public int writeBatchSize = 50; // files per bulk write command
+        public int writeBatchTimeBudgetMs = 50; // EDT time per write slice
         
         // UI settings
         public boolean showTooltips = true;
@@ -125,6 +129,14 @@ public class UnicodeCleanerSettings implements PersistentStateComponent<UnicodeC
         state.enableVariation = enabled;
     }
     
+    public boolean isMathAlphanumericEnabled() {
+        return state.enableMathAlphanumeric;
+    }
+    
+    public void setMathAlphanumericEnabled(boolean enabled) {
+        state.enableMathAlphanumeric = enabled;
+    }
+    
     public Set<UnicodeDetector.CharacterCategory> getEnabledCategories() {
         Set<UnicodeDetector.CharacterCategory> categories = new HashSet<>();
         
@@ -149,10 +161,22 @@ public class UnicodeCleanerSettings implements PersistentStateComponent<UnicodeC
         if (state.enableVariation) {
             categories.add(UnicodeDetector.CharacterCategory.VARIATION);
         }
+        if (state.enableMathAlphanumeric) {
+            categories.add(UnicodeDetector.CharacterCategory.MATH_ALPHANUMERIC);
+        }
         
         return categories;
     }
     
+    /**
+     * Enabled categories as a category mask for the detector's mask-based scan methods.
+     * Callers compute it once per scan rather than once per file or element.
+     */
+    public int getEnabledCategoryMask() {
+        // Derived from the set so a new category only needs to be added there
+        return UnicodeDetector.toMask(getEnabledCategories());
+    }
+    
     // File type settings
     public Set<String> getEnabledExtensions() {
         return new HashSet<>(state.enabledExtensions);
@@ -213,6 +237,14 @@ public class UnicodeCleanerSettings implements PersistentStateComponent<UnicodeC
         state.showCommitSummary = show;
     }
     
+    public boolean isChangedLinesOnlyEnabled() {
+        return state.changedLinesOnly;
+    }
+    
+    public void setChangedLinesOnlyEnabled(boolean enabled) {
+        state.changedLinesOnly = enabled;
+    }
+    
     // Performance settings
     public int getMaxFileSizeKB() {
         return state.maxFileSizeKB;
@@ -230,6 +262,22 @@ public class UnicodeCleanerSettings implements PersistentStateComponent<UnicodeC
         state.enableRealTimeDetection = enabled;
     }
     
+    public int getWriteBatchSize() {
+        return state.writeBatchSize;
+    }
+    
+    public void setWriteBatchSize(int batchSize) {
+        state.writeBatchSize = batchSize;
+    }
+    
+    public int getWriteBatchTimeBudgetMs() {
+        return state.writeBatchTimeBudgetMs;
+    }
+    
+    public void setWriteBatchTimeBudgetMs(int timeBudgetMs) {
+        state.writeBatchTimeBudgetMs = timeBudgetMs;
+    }
+    
     // UI settings
     public boolean shouldShowTooltips() {
         return state.showTooltips;
@@ -278,12 +326,16 @@ public class UnicodeCleanerSettings implements PersistentStateComponent<UnicodeC
         settings.put("enablePunctuation", state.enablePunctuation);
         settings.put("enableFullWidth", state.enableFullWidth);
         settings.put("enableVariation", state.enableVariation);
+        settings.put("enableMathAlphanumeric", state.enableMathAlphanumeric);
         settings.put("enabledExtensions", state.enabledExtensions);
         settings.put("enablePreCommitCheck", state.enablePreCommitCheck);
         settings.put("blockCommitsWithIssues", state.blockCommitsWithIssues);
         settings.put("autoFixBeforeCommit", state.autoFixBeforeCommit);
+        settings.put("changedLinesOnly", state.changedLinesOnly);
         settings.put("maxFileSizeKB", state.maxFileSizeKB);
         settings.put("enableRealTimeDetection", state.enableRealTimeDetection);
+        settings.put("writeBatchSize", state.writeBatchSize);
+        settings.put("writeBatchTimeBudgetMs", state.writeBatchTimeBudgetMs);
         return settings;
     }
 }
@@ -0,0 +1,436 @@
+package com.unicodecleaner.toolwindow;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.unicodecleaner.services.DocumentIssueCache;
+import com.unicodecleaner.services.IssueCounter;
+import com.unicodecleaner.settings.UnicodeCleanerSettings;
+import com.unicodecleaner.utils.UnicodeDetector;
+import com.unicodecleaner.utils.WindowedFileScanner;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Issues of the project grouped by file and category.
+ * Files only hold their issue counts per category, so a scan adds one small node per file
+ * however many issues it has. The issues of a category are looked up in the background when
+ * its node is first expanded, behind a loading node, and at most {@link #ISSUE_LIMIT} of them
+ * are created. Files are kept sorted by path and can be added, updated and removed one at a
+ * time while a scan is running.
+ *
+ * <p>Not thread-safe: the model must only be used on the EDT.
+ */
+final class IssueTreeModel implements TreeModel {
+
+    // Issues listed per category node, the rest are summarized in a single node
+    static final int ISSUE_LIMIT = 1000;
+
+    private static final Comparator<FileNode> BY_PATH = Comparator.comparing(node -> node.path);
+
+    static final class FileNode {
+        final VirtualFile file;
+        // Path when added, the list stays sorted by it even if the file is renamed meanwhile
+        final String path;
+        int issueCount;
+        CategoryNode[] categories;
+
+        FileNode(VirtualFile file) {
+            this.file = file;
+            this.path = file.getPath();
+        }
+
+        void setCounts(int[] categoryCounts) {
+            List<CategoryNode> nodes = new ArrayList<>();
+            int total = 0;
+            for (UnicodeDetector.CharacterCategory category : UnicodeDetector.CharacterCategory.values()) {
+                int count = categoryCounts[category.ordinal()];
+                if (count > 0) {
+                    nodes.add(new CategoryNode(this, category, count));
+                    total += count;
+                }
+            }
+            issueCount = total;
+            categories = nodes.toArray(new CategoryNode[0]);
+        }
+    }
+
+    static final class CategoryNode {
+        final FileNode parent;
+        final UnicodeDetector.CharacterCategory category;
+        final int issueCount;
+        // Loaded on first expansion
+        private List<Object> children;
+
+        CategoryNode(FileNode parent, UnicodeDetector.CharacterCategory category, int issueCount) {
+            this.parent = parent;
+            this.category = category;
+            this.issueCount = issueCount;
+        }
+    }
+
+    static final class IssueNode {
+        final CategoryNode parent;
+        // Document offset, -1 for issues found on disk in files too large to load
+        final int offset;
+        final int line;
+        final int column;
+        final UnicodeDetector.CharacterInfo info;
+        final String context;
+
+        IssueNode(CategoryNode parent, int offset, int line, int column, UnicodeDetector.CharacterInfo info, String context) {
+            this.parent = parent;
+            this.offset = offset;
+            this.line = line;
+            this.column = column;
+            this.info = info;
+            this.context = context;
+        }
+    }
+
+    /**
+     * Leaf shown while the issues of a category are loaded.
+     */
+    static final class LoadingNode {
+        static final LoadingNode INSTANCE = new LoadingNode();
+
+        private LoadingNode() {
+        }
+    }
+
+    /**
+     * Leaf standing in for the issues beyond {@link #ISSUE_LIMIT}.
+     */
+    static final class MoreNode {
+        final int count;
+
+        MoreNode(int count) {
+            this.count = count;
+        }
+    }
+
+    private final Disposable parentDisposable;
+    private final Object root = new Object();
+    private final List<FileNode> files = new ArrayList<>();
+    private final Map<VirtualFile, FileNode> nodesByFile = new HashMap<>();
+    private final EventListenerList listeners = new EventListenerList();
+    private int totalIssues;
+
+    IssueTreeModel(@NotNull Disposable parentDisposable) {
+        this.parentDisposable = parentDisposable;
+    }
+
+    int getFileCount() {
+        return files.size();
+    }
+
+    int getTotalIssues() {
+        return totalIssues;
+    }
+
+    @NotNull List<VirtualFile> getFiles() {
+        List<VirtualFile> result = new ArrayList<>(files.size());
+        for (FileNode node : files) {
+            result.add(node.file);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the file, or replaces its node if the file is already listed. A file without
+     * issues is removed.
+     */
+    void setFile(@NotNull VirtualFile file, int @NotNull [] categoryCounts) {
+        if (IssueCounter.countIssues(categoryCounts, UnicodeDetector.ALL_CATEGORIES_MASK) == 0) {
+            removeFile(file);
+            return;
+        }
+
+        FileNode node = nodesByFile.get(file);
+        if (node != null && node.path.equals(file.getPath())) {
+            // Same node, so the tree keeps it selected; its category nodes are replaced
+            totalIssues -= node.issueCount;
+            node.setCounts(categoryCounts);
+            totalIssues += node.issueCount;
+            fireStructureChanged(new TreePath(new Object[]{root, node}));
+            return;
+        }
+        if (node != null) {
+            // Renamed or moved, so it belongs elsewhere in the list
+            removeFile(file);
+        }
+
+        node = new FileNode(file);
+        node.setCounts(categoryCounts);
+        int index = Collections.binarySearch(files, node, BY_PATH);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        files.add(index, node);
+        nodesByFile.put(file, node);
+        totalIssues += node.issueCount;
+        fireNodesInserted(new TreePath(root), new int[]{index}, new Object[]{node});
+    }
+
+    void removeFile(@NotNull VirtualFile file) {
+        FileNode node = nodesByFile.remove(file);
+        if (node == null) {
+            return;
+        }
+        int index = Collections.binarySearch(files, node, BY_PATH);
+        files.remove(index);
+        totalIssues -= node.issueCount;
+        fireNodesRemoved(new TreePath(root), new int[]{index}, new Object[]{node});
+    }
+
+    /**
+     * Removes the files that were deleted, directly or with one of their parents.
+     */
+    void removeInvalidFiles() {
+        for (FileNode node : new ArrayList<>(files)) {
+            if (!node.file.isValid()) {
+                removeFile(node.file);
+            }
+        }
+    }
+
+    void clear() {
+        files.clear();
+        nodesByFile.clear();
+        totalIssues = 0;
+        fireStructureChanged(new TreePath(root));
+    }
+
+    @Override
+    public Object getRoot() {
+        return root;
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        if (parent == root) {
+            return files.get(index);
+        }
+        if (parent instanceof FileNode) {
+            return ((FileNode) parent).categories[index];
+        }
+        return getIssues((CategoryNode) parent).get(index);
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        if (parent == root) {
+            return files.size();
+        }
+        if (parent instanceof FileNode) {
+            return ((FileNode) parent).categories.length;
+        }
+        if (parent instanceof CategoryNode) {
+            return getIssues((CategoryNode) parent).size();
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        // Checked without loading, so collapsed category nodes stay cheap
+        return node instanceof IssueNode || node instanceof MoreNode || node instanceof LoadingNode;
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (parent == null || child == null) {
+            return -1;
+        }
+        if (parent == root) {
+            return child instanceof FileNode ? Collections.binarySearch(files, (FileNode) child, BY_PATH) : -1;
+        }
+        if (parent instanceof FileNode) {
+            CategoryNode[] categories = ((FileNode) parent).categories;
+            for (int i = 0; i < categories.length; i++) {
+                if (categories[i] == child) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        if (parent instanceof CategoryNode) {
+            List<Object> children = ((CategoryNode) parent).children;
+            return children != null ? children.indexOf(child) : -1;
+        }
+        return -1;
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // Read-only
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener listener) {
+        listeners.add(TreeModelListener.class, listener);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener) {
+        listeners.remove(TreeModelListener.class, listener);
+    }
+
+    private @NotNull List<Object> getIssues(@NotNull CategoryNode node) {
+        if (node.children == null) {
+            node.children = Collections.singletonList(LoadingNode.INSTANCE);
+            loadIssues(node);
+        }
+        return node.children;
+    }
+
+    /**
+     * Looks up the issues of a category in the file's current document, which may be edited
+     * since the file was scanned. The document is loaded and scanned off the EDT. Files too
+     * large to load are read from disk instead, see {@link #findLargeFileIssues}.
+     */
+    private void loadIssues(@NotNull CategoryNode node) {
+        VirtualFile file = node.parent.file;
+        if (file.isValid() && file.getLength() > UnicodeCleanerSettings.getInstance().getMaxFileSizeKB() * 1024L) {
+            // Plain file reads, kept out of a read action so they do not hold up writes
+            AppExecutorUtil.getAppExecutorService().execute(() -> {
+                List<Object> children = findLargeFileIssues(node);
+                ApplicationManager.getApplication().invokeLater(() -> setIssues(node, children),
+                    ModalityState.defaultModalityState(), o -> Disposer.isDisposed(parentDisposable));
+            });
+            return;
+        }
+        ReadAction.nonBlocking(() -> findIssues(node))
+            .expireWith(parentDisposable)
+            .finishOnUiThread(ModalityState.defaultModalityState(), children -> setIssues(node, children))
+            .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    private static @NotNull List<Object> findIssues(@NotNull CategoryNode node) {
+        VirtualFile file = node.parent.file;
+        Document document = file.isValid() ? FileDocumentManager.getInstance().getDocument(file) : null;
+        if (document == null) {
+            return Collections.emptyList();
+        }
+
+        int categoryMask = node.category.getMask();
+        List<UnicodeDetector.UnicodeIssue> issues = DocumentIssueCache.getIssues(document, categoryMask, ISSUE_LIMIT);
+        List<Object> children = new ArrayList<>(issues.size() + 1);
+        for (UnicodeDetector.UnicodeIssue issue : issues) {
+            int line = document.getLineNumber(issue.startOffset);
+            int column = issue.startOffset - document.getLineStartOffset(line);
+            children.add(new IssueNode(node, issue.startOffset, line, column, issue.characterInfo, issue.getContext()));
+        }
+        if (issues.size() == ISSUE_LIMIT) {
+            int more = DocumentIssueCache.countIssues(document, categoryMask) - ISSUE_LIMIT;
+            if (more > 0) {
+                children.add(new MoreNode(more));
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Lists the first issues of a file too large to load with a windowed scan of its content
+     * on disk, which stops once {@link #ISSUE_LIMIT} issues are found. Files that cannot be
+     * scanned that way only show their issue count.
+     */
+    private static @NotNull List<Object> findLargeFileIssues(@NotNull CategoryNode node) {
+        VirtualFile file = node.parent.file;
+        List<Object> children = new ArrayList<>();
+        if (StandardCharsets.UTF_8.equals(file.getCharset()) && file.isInLocalFileSystem()) {
+            try {
+                List<WindowedFileScanner.LocatedIssue> issues = new WindowedFileScanner(node.category.getMask())
+                    .findIssues(file.toNioPath(), ISSUE_LIMIT);
+                for (WindowedFileScanner.LocatedIssue issue : issues) {
+                    children.add(new IssueNode(node, -1, issue.line, issue.column, issue.info, issue.context));
+                }
+            } catch (IOException ex) {
+                System.err.println("Error scanning file: " + file.getName() + " - " + ex.getMessage());
+                children.clear();
+            }
+        }
+        // The count is the one of the last scan, the file may have changed since
+        int more = node.issueCount - children.size();
+        if (more > 0) {
+            children.add(new MoreNode(more));
+        }
+        return children;
+    }
+
+    private void setIssues(@NotNull CategoryNode node, @NotNull List<Object> children) {
+        List<Object> loading = node.children;
+        node.children = children;
+
+        // A rescan of the file meanwhile replaced its category nodes, nothing to show
+        FileNode fileNode = node.parent;
+        if (nodesByFile.get(fileNode.file) != fileNode || !Arrays.asList(fileNode.categories).contains(node)) {
+            return;
+        }
+
+        TreePath path = new TreePath(new Object[]{root, fileNode, node});
+        fireNodesRemoved(path, new int[]{0}, loading.toArray());
+        if (!children.isEmpty()) {
+            int[] indices = new int[children.size()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = i;
+            }
+            fireNodesInserted(path, indices, children.toArray());
+        }
+    }
+
+    private void fireNodesInserted(@NotNull TreePath parent, int @NotNull [] indices, Object @NotNull [] children) {
+        TreeModelEvent event = new TreeModelEvent(this, parent, indices, children);
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesInserted(event);
+        }
+    }
+
+    private void fireNodesRemoved(@NotNull TreePath parent, int @NotNull [] indices, Object @NotNull [] children) {
+        TreeModelEvent event = new TreeModelEvent(this, parent, indices, children);
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesRemoved(event);
+        }
+    }
+
+    private void fireStructureChanged(@NotNull TreePath path) {
+        TreeModelEvent event = new TreeModelEvent(this, path);
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeStructureChanged(event);
+        }
+    }
+
+    static @Nullable VirtualFile getFile(@Nullable Object node) {
+        if (node instanceof FileNode) {
+            return ((FileNode) node).file;
+        }
+        if (node instanceof CategoryNode) {
+            return ((CategoryNode) node).parent.file;
+        }
+        if (node instanceof IssueNode) {
+            return ((IssueNode) node).parent.parent.file;
+        }
+        return null;
+    }
+}
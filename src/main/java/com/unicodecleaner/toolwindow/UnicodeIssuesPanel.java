@@ -0,0 +1,457 @@
+package com.unicodecleaner.toolwindow;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.ActionToolbar;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.pom.Navigatable;
+import com.intellij.ui.ColoredTreeCellRenderer;
+import com.intellij.ui.DoubleClickListener;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.ui.treeStructure.Tree;
+import com.intellij.util.Alarm;
+import com.unicodecleaner.index.UnicodeIssueIndex;
+import com.unicodecleaner.services.BatchedDocumentWriter;
+import com.unicodecleaner.services.ParallelFileScanner;
+import com.unicodecleaner.settings.UnicodeCleanerSettings;
+import com.unicodecleaner.utils.UnicodeDetector;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.JTree;
+import javax.swing.tree.TreePath;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tool window content listing the Unicode issues of the project.
+ * A project scan runs in the background and adds files to the tree in small batches as they
+ * are scanned. Afterwards the tree follows VFS events: saved, created, moved and renamed files
+ * are rescanned on their own and deleted files are dropped, without scanning the project again.
+ * Unsaved editor changes show up once the file is saved.
+ */
+final class UnicodeIssuesPanel extends SimpleToolWindowPanel implements Disposable {
+
+    // Scan results are handed to the EDT in batches of this size or after this delay
+    private static final int PUBLISH_BATCH_SIZE = 100;
+    private static final long PUBLISH_INTERVAL_MS = 200;
+    // VFS events are coalesced for this long before the affected files are rescanned
+    private static final int UPDATE_DELAY_MS = 300;
+
+    private static final int[] NO_ISSUES = new int[UnicodeDetector.CharacterCategory.values().length];
+
+    private final Project project;
+    private final IssueTreeModel model = new IssueTreeModel(this);
+    private final Tree tree = new Tree(model);
+    private final Alarm updateAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
+    private final Set<VirtualFile> pendingUpdates = new LinkedHashSet<>();
+    private volatile ProgressIndicator scanIndicator;
+    // Incremented on the EDT by every rescan, results of older scans are dropped
+    private int scanGeneration;
+
+    UnicodeIssuesPanel(@NotNull Project project) {
+        super(true, true);
+        this.project = project;
+
+        tree.setRootVisible(false);
+        tree.setShowsRootHandles(true);
+        // Lets the tree skip laying out rows that are not visible
+        tree.setLargeModel(true);
+        tree.setCellRenderer(new IssueCellRenderer());
+        tree.getEmptyText().setText("No Unicode issues found");
+        installNavigation();
+        setContent(ScrollPaneFactory.createScrollPane(tree));
+        setToolbar(createToolbar().getComponent());
+
+        project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                onFilesChanged(events);
+            }
+        });
+    }
+
+    /**
+     * Clears the tree and scans the project again.
+     */
+    void rescan() {
+        ProgressIndicator running = scanIndicator;
+        if (running != null) {
+            running.cancel();
+        }
+        int generation = ++scanGeneration;
+        model.clear();
+        tree.getEmptyText().setText("Scanning...");
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Scanning for Unicode Issues", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                scanIndicator = indicator;
+                scanProject(indicator, generation);
+            }
+
+            @Override
+            public void onFinished() {
+                // A newer scan may already be running
+                if (generation == scanGeneration) {
+                    tree.getEmptyText().setText("No Unicode issues found");
+                }
+            }
+        });
+    }
+
+    @Override
+    public @Nullable Object getData(@NotNull String dataId) {
+        if (CommonDataKeys.NAVIGATABLE.is(dataId)) {
+            return getNavigatable(tree.getLastSelectedPathComponent());
+        }
+        return super.getData(dataId);
+    }
+
+    @Override
+    public void dispose() {
+        ProgressIndicator running = scanIndicator;
+        if (running != null) {
+            running.cancel();
+        }
+    }
+
+    private void scanProject(@NotNull ProgressIndicator indicator, int generation) {
+        UnicodeCleanerSettings settings = UnicodeCleanerSettings.getInstance();
+        int categoryMask = settings.getEnabledCategoryMask();
+
+        // In smart mode the issue index already knows which files have issues, only files
+        // too large to be indexed are scanned on top
+        Collection<VirtualFile> candidates = DumbService.getInstance(project).tryRunReadActionInSmartMode(
+            () -> UnicodeIssueIndex.findFilesToScan(project, categoryMask),
+            null
+        );
+        if (candidates == null) {
+            candidates = ReadAction.compute(() -> {
+                List<VirtualFile> files = new ArrayList<>();
+                ProjectFileIndex.getInstance(project).iterateContent(file -> {
+                    if (!file.isDirectory()) {
+                        files.add(file);
+                    }
+                    return true;
+                });
+                return files;
+            });
+        }
+
+        List<VirtualFile> files = new ArrayList<>();
+        for (VirtualFile file : candidates) {
+            if (settings.shouldCheckFileType(file.getName())) {
+                files.add(file);
+            }
+        }
+
+        List<ParallelFileScanner.ScanResult> batch = new ArrayList<>();
+        long[] lastPublish = {System.currentTimeMillis()};
+        new ParallelFileScanner(project, categoryMask).scan(files, indicator, result -> {
+            batch.add(result);
+            long now = System.currentTimeMillis();
+            if (batch.size() >= PUBLISH_BATCH_SIZE || now - lastPublish[0] >= PUBLISH_INTERVAL_MS) {
+                publish(new ArrayList<>(batch), generation);
+                batch.clear();
+                lastPublish[0] = now;
+            }
+        });
+        publish(batch, generation);
+    }
+
+    /**
+     * Adds scan results to the tree, unless a rescan cleared it since the scan started.
+     * Batches of a canceled scan may still be queued or published after the cancellation.
+     */
+    private void publish(@NotNull List<ParallelFileScanner.ScanResult> results, int generation) {
+        if (results.isEmpty()) {
+            return;
+        }
+        ApplicationManager.getApplication().invokeLater(() -> {
+            if (generation != scanGeneration) {
+                return;
+            }
+            for (ParallelFileScanner.ScanResult result : results) {
+                model.setFile(result.file, result.categoryCounts);
+            }
+        }, ModalityState.defaultModalityState(), project.getDisposed());
+    }
+
+    private void onFilesChanged(@NotNull List<? extends VFileEvent> events) {
+        boolean changed = false;
+        synchronized (pendingUpdates) {
+            for (VFileEvent event : events) {
+                VirtualFile file = event.getFile();
+                if (event instanceof VFileDeleteEvent) {
+                    changed = true;
+                } else if (file != null) {
+                    pendingUpdates.add(file);
+                    changed = true;
+                }
+            }
+        }
+        if (changed) {
+            updateAlarm.cancelAllRequests();
+            updateAlarm.addRequest(this::updateChangedFiles, UPDATE_DELAY_MS);
+        }
+    }
+
+    private void queueUpdate(@NotNull Collection<VirtualFile> files) {
+        synchronized (pendingUpdates) {
+            pendingUpdates.addAll(files);
+        }
+        updateAlarm.cancelAllRequests();
+        updateAlarm.addRequest(this::updateChangedFiles, UPDATE_DELAY_MS);
+    }
+
+    /**
+     * Rescans the files touched by VFS events since the last update. Runs on a pooled thread.
+     */
+    private void updateChangedFiles() {
+        List<VirtualFile> changed;
+        synchronized (pendingUpdates) {
+            changed = new ArrayList<>(pendingUpdates);
+            pendingUpdates.clear();
+        }
+
+        UnicodeCleanerSettings settings = UnicodeCleanerSettings.getInstance();
+        int categoryMask = settings.getEnabledCategoryMask();
+        Set<VirtualFile> files = ReadAction.compute(() -> collectFiles(changed, settings));
+
+        Map<VirtualFile, int[]> found = new HashMap<>();
+        if (!files.isEmpty()) {
+            new ParallelFileScanner(project, categoryMask).scan(new ArrayList<>(files), new EmptyProgressIndicator(),
+                result -> found.put(result.file, result.categoryCounts));
+        }
+
+        ApplicationManager.getApplication().invokeLater(() -> {
+            model.removeInvalidFiles();
+            for (VirtualFile file : changed) {
+                if (!files.contains(file)) {
+                    // Moved out of the project or no longer a checked file type
+                    model.removeFile(file);
+                }
+            }
+            for (VirtualFile file : files) {
+                model.setFile(file, found.getOrDefault(file, NO_ISSUES));
+            }
+        }, ModalityState.defaultModalityState(), project.getDisposed());
+    }
+
+    /**
+     * Returns the project files to rescan for the changed files, expanding directories that
+     * were created or moved into the project.
+     */
+    private @NotNull Set<VirtualFile> collectFiles(@NotNull List<VirtualFile> changed,
+                                                   @NotNull UnicodeCleanerSettings settings) {
+        ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+        Set<VirtualFile> files = new LinkedHashSet<>();
+        for (VirtualFile root : changed) {
+            if (!root.isValid()) {
+                continue;
+            }
+            VfsUtilCore.iterateChildrenRecursively(root, fileIndex::isInContent, file -> {
+                if (!file.isDirectory() && settings.shouldCheckFileType(file.getName())) {
+                    files.add(file);
+                }
+                return true;
+            });
+        }
+        return files;
+    }
+
+    /**
+     * Cleans the files of the selected nodes, or every listed file if nothing is selected,
+     * through the same batched edit-script path as the clean actions.
+     */
+    private void cleanFiles() {
+        List<VirtualFile> files = getSelectedFiles();
+        if (files.isEmpty()) {
+            files = model.getFiles();
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+
+        int result = Messages.showYesNoDialog(
+            project,
+            String.format("This will clean Unicode characters in %d file(s).\n\nDo you want to continue?", files.size()),
+            "Clean Unicode Issues",
+            Messages.getQuestionIcon()
+        );
+        if (result != Messages.YES) {
+            return;
+        }
+
+        List<VirtualFile> filesToClean = files;
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Cleaning Unicode Characters", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                UnicodeCleanerSettings settings = UnicodeCleanerSettings.getInstance();
+                BatchedDocumentWriter writer = new BatchedDocumentWriter(project, "Clean Unicode Issues",
+                    settings.getEnabledCategoryMask(), settings.getWriteBatchSize(),
+                    settings.getWriteBatchTimeBudgetMs(), settings.isChangedLinesOnlyEnabled());
+
+                indicator.setIndeterminate(false);
+                for (int i = 0; i < filesToClean.size() && !indicator.isCanceled(); i++) {
+                    VirtualFile file = filesToClean.get(i);
+                    indicator.setFraction((double) i / filesToClean.size());
+                    indicator.setText2("Cleaning: " + file.getName());
+                    writer.add(file);
+                }
+                writer.flush();
+
+                // Cleaned documents are not saved yet, so no VFS event reports them
+                queueUpdate(filesToClean);
+            }
+        });
+    }
+
+    private @NotNull List<VirtualFile> getSelectedFiles() {
+        Set<VirtualFile> files = new LinkedHashSet<>();
+        TreePath[] paths = tree.getSelectionPaths();
+        if (paths != null) {
+            for (TreePath path : paths) {
+                VirtualFile file = IssueTreeModel.getFile(path.getLastPathComponent());
+                if (file != null) {
+                    files.add(file);
+                }
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private @Nullable Navigatable getNavigatable(@Nullable Object node) {
+        VirtualFile file = IssueTreeModel.getFile(node);
+        if (file == null || !file.isValid()) {
+            return null;
+        }
+        if (!(node instanceof IssueTreeModel.IssueNode)) {
+            return new OpenFileDescriptor(project, file);
+        }
+        IssueTreeModel.IssueNode issue = (IssueTreeModel.IssueNode) node;
+        return issue.offset >= 0
+            ? new OpenFileDescriptor(project, file, issue.offset)
+            : new OpenFileDescriptor(project, file, issue.line, issue.column);
+    }
+
+    private void installNavigation() {
+        new DoubleClickListener() {
+            @Override
+            protected boolean onDoubleClick(@NotNull MouseEvent event) {
+                Object node = tree.getLastSelectedPathComponent();
+                // Double-clicking a group node expands it instead
+                if (!(node instanceof IssueTreeModel.IssueNode)) {
+                    return false;
+                }
+                return navigate(node);
+            }
+        }.installOn(tree);
+
+        tree.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent event) {
+                if (event.getKeyCode() == KeyEvent.VK_ENTER && navigate(tree.getLastSelectedPathComponent())) {
+                    event.consume();
+                }
+            }
+        });
+    }
+
+    private boolean navigate(@Nullable Object node) {
+        Navigatable navigatable = getNavigatable(node);
+        if (navigatable == null || !navigatable.canNavigate()) {
+            return false;
+        }
+        navigatable.navigate(true);
+        return true;
+    }
+
+    private @NotNull ActionToolbar createToolbar() {
+        DefaultActionGroup group = new DefaultActionGroup();
+        group.add(new DumbAwareAction("Rescan", "Scan the project for Unicode issues again", AllIcons.Actions.Refresh) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                rescan();
+            }
+        });
+        group.add(new DumbAwareAction("Clean", "Clean the selected files, or all listed files", AllIcons.Actions.QuickfixBulb) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                cleanFiles();
+            }
+
+            @Override
+            public void update(@NotNull AnActionEvent e) {
+                e.getPresentation().setEnabled(model.getFileCount() > 0);
+            }
+        });
+
+        ActionToolbar toolbar = ActionManager.getInstance().createActionToolbar("UnicodeIssuesToolbar", group, true);
+        toolbar.setTargetComponent(this);
+        return toolbar;
+    }
+
+    private static final class IssueCellRenderer extends ColoredTreeCellRenderer {
+        @Override
+        public void customizeCellRenderer(@NotNull JTree tree, Object value, boolean selected, boolean expanded,
+                                          boolean leaf, int row, boolean hasFocus) {
+            if (value instanceof IssueTreeModel.FileNode) {
+                IssueTreeModel.FileNode node = (IssueTreeModel.FileNode) value;
+                setIcon(node.file.getFileType().getIcon());
+                append(node.file.getName());
+                VirtualFile parent = node.file.getParent();
+                if (parent != null) {
+                    append("  " + parent.getPresentableUrl(), SimpleTextAttributes.GRAYED_ATTRIBUTES);
+                }
+                append("  " + node.issueCount + " issue(s)", SimpleTextAttributes.GRAY_ATTRIBUTES);
+            } else if (value instanceof IssueTreeModel.CategoryNode) {
+                IssueTreeModel.CategoryNode node = (IssueTreeModel.CategoryNode) value;
+                append(node.category.getDisplayName());
+                append("  " + node.issueCount, SimpleTextAttributes.GRAY_ATTRIBUTES);
+            } else if (value instanceof IssueTreeModel.IssueNode) {
+                IssueTreeModel.IssueNode node = (IssueTreeModel.IssueNode) value;
+                append((node.line + 1) + ":" + (node.column + 1) + "  ", SimpleTextAttributes.GRAY_ATTRIBUTES);
+                append(node.info.unicode + " " + node.info.description);
+                append("  " + node.context.replace('\n', ' '), SimpleTextAttributes.GRAYED_ATTRIBUTES);
+            } else if (value instanceof IssueTreeModel.LoadingNode) {
+                append("Loading...", SimpleTextAttributes.GRAYED_ATTRIBUTES);
+            } else if (value instanceof IssueTreeModel.MoreNode) {
+                append(((IssueTreeModel.MoreNode) value).count + " more issue(s)", SimpleTextAttributes.GRAYED_ATTRIBUTES);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.unicodecleaner.toolwindow;
+
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Creates the Unicode Issues tool window. The project is scanned when the window is first shown.
+ */
+public class UnicodeIssuesToolWindowFactory implements ToolWindowFactory, DumbAware {
+
+    public static final String ID = "Unicode Issues";
+
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        UnicodeIssuesPanel panel = new UnicodeIssuesPanel(project);
+        Content content = ContentFactory.getInstance().createContent(panel, null, false);
+        content.setDisposer(panel);
+        toolWindow.getContentManager().addContent(content);
+        panel.rescan();
+    }
+}
@@ -0,0 +1,173 @@
+package com.unicodecleaner.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Dense two-level lookup table used by the scan loops in {@link UnicodeDetector}.
+ * The code point shifted right by 8 selects a 256-entry block, the low byte selects the entry
+ * inside it. Blocks without any problematic character share a single all-zero block, so the
+ * table covers the BMP and the supplementary planes in a few kilobytes while lookups are two
+ * array reads with no boxing or hashing.
+ */
+final class CharacterTable {
+
+    /** Entry value for characters that are not problematic. */
+    static final int NONE = 0;
+
+    private static final int BLOCK_SHIFT = 8;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    /** Code point block to the start offset of its block in {@link #entries}. */
+    private final char[] blockOffsets;
+
+    /** Info index + 1 for every code point of every populated block, {@link #NONE} otherwise. */
+    private final short[] entries;
+
+    /** Character infos addressed by entry value - 1. */
+    private final UnicodeDetector.CharacterInfo[] infos;
+
+    /** Category ordinal of each info, so mask checks do not have to touch the info objects. */
+    private final byte[] categories;
+
+    /** Every character below this value is known to be clean (the ASCII fast-skip bound). */
+    private final char minChar;
+
+    /** UTF-8 lead byte to the mask of categories with a character encoded under that lead byte. */
+    private final int[] leadByteMasks;
+
+    /** Hash of every character, category and replacement, used to invalidate persisted results. */
+    private final int fingerprint;
+
+    private CharacterTable(char[] blockOffsets, short[] entries, UnicodeDetector.CharacterInfo[] infos,
+                           byte[] categories, char minChar, int[] leadByteMasks, int fingerprint) {
+        this.blockOffsets = blockOffsets;
+        this.entries = entries;
+        this.infos = infos;
+        this.categories = categories;
+        this.minChar = minChar;
+        this.leadByteMasks = leadByteMasks;
+        this.fingerprint = fingerprint;
+    }
+
+    static CharacterTable build(Collection<UnicodeDetector.CharacterInfo> characters) {
+        UnicodeDetector.CharacterInfo[] infos = characters.toArray(new UnicodeDetector.CharacterInfo[0]);
+        Arrays.sort(infos, (a, b) -> Integer.compare(a.codePoint, b.codePoint));
+
+        char[] blockOffsets = new char[Character.MAX_CODE_POINT + 1 >>> BLOCK_SHIFT];
+        int blockCount = 1; // block 0 is the shared empty block
+        for (int i = 0; i < infos.length; i++) {
+            int block = infos[i].codePoint >>> BLOCK_SHIFT;
+            if (blockOffsets[block] == 0) {
+                blockOffsets[block] = (char) (blockCount++ * BLOCK_SIZE);
+            }
+        }
+        if (blockCount * BLOCK_SIZE > Character.MAX_VALUE + 1 || infos.length > Short.MAX_VALUE) {
+            throw new IllegalStateException("Character table exceeds its addressable size");
+        }
+
+        short[] entries = new short[blockCount * BLOCK_SIZE];
+        byte[] categories = new byte[infos.length];
+        int[] leadByteMasks = new int[256];
+        int minCodePoint = Character.MAX_VALUE;
+        int fingerprint = UnicodeDetector.CharacterCategory.values().length;
+        for (int i = 0; i < infos.length; i++) {
+            int codePoint = infos[i].codePoint;
+            entries[blockOffsets[codePoint >>> BLOCK_SHIFT] + (codePoint & BLOCK_MASK)] = (short) (i + 1);
+            categories[i] = (byte) infos[i].category.ordinal();
+            leadByteMasks[utf8LeadByte(codePoint)] |= infos[i].category.getMask();
+            minCodePoint = Math.min(minCodePoint, codePoint);
+            fingerprint = 31 * (31 * (31 * fingerprint + codePoint) + categories[i]) + infos[i].replacement.hashCode();
+        }
+
+        return new CharacterTable(blockOffsets, entries, infos, categories, (char) minCodePoint, leadByteMasks,
+                fingerprint);
+    }
+
+    private static int utf8LeadByte(int codePoint) {
+        if (codePoint < 0x80) {
+            return codePoint;
+        } else if (codePoint < 0x800) {
+            return 0xC0 | codePoint >>> 6;
+        } else if (codePoint < 0x10000) {
+            return 0xE0 | codePoint >>> 12;
+        }
+        return 0xF0 | codePoint >>> 18;
+    }
+
+    /**
+     * Returns the entry for a BMP character, or {@link #NONE} if it is not problematic.
+     * Surrogates always map to {@link #NONE}; use {@link #lookupCodePoint} for the decoded pair.
+     */
+    int lookup(char c) {
+        if (c < minChar) {
+            return NONE;
+        }
+        return entries[blockOffsets[c >>> BLOCK_SHIFT] + (c & BLOCK_MASK)];
+    }
+
+    /**
+     * Returns the entry for any code point, or {@link #NONE} if it is not problematic.
+     */
+    int lookupCodePoint(int codePoint) {
+        if (codePoint < minChar) {
+            return NONE;
+        }
+        return entries[blockOffsets[codePoint >>> BLOCK_SHIFT] + (codePoint & BLOCK_MASK)];
+    }
+
+    /**
+     * Returns the entry of the character at {@code index}, decoding a surrogate pair if there is
+     * one, or {@link #NONE}. The entry's width in chars is {@code info(entry).length()}.
+     */
+    int lookupAt(CharSequence text, int index) {
+        char c = text.charAt(index);
+        int entry = lookup(c);
+        if (entry == NONE && Character.isHighSurrogate(c) && index + 1 < text.length()) {
+            char low = text.charAt(index + 1);
+            if (Character.isLowSurrogate(low)) {
+                entry = lookupCodePoint(Character.toCodePoint(c, low));
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Checks whether the category of a non-{@link #NONE} entry is part of the category mask.
+     */
+    boolean matches(int entry, int categoryMask) {
+        return (categoryMask & (1 << categories[entry - 1])) != 0;
+    }
+
+    /**
+     * Returns the character info for a non-{@link #NONE} entry.
+     */
+    UnicodeDetector.CharacterInfo info(int entry) {
+        return infos[entry - 1];
+    }
+
+    /**
+     * Lowest problematic character; callers can skip anything below it without a lookup.
+     */
+    char minChar() {
+        return minChar;
+    }
+
+    /**
+     * Returns the mask of categories that have a character whose UTF-8 encoding starts with the
+     * given lead byte (0-255). Sequences under a lead byte with no matching category can be skipped
+     * without decoding.
+     */
+    int leadByteMask(int leadByte) {
+        return leadByteMasks[leadByte];
+    }
+
+    /**
+     * Returns a hash of the table contents that changes whenever a character, its category or
+     * its replacement changes.
+     */
+    int fingerprint() {
+        return fingerprint;
+    }
+}
@@ -0,0 +1,98 @@
+package com.unicodecleaner.utils;
+
+import java.util.Arrays;
+
+/**
+ * Compact list of replacements that turns a text into its cleaned form.
+ * Edits are sorted by offset, never overlap and refer to offsets in the original text,
+ * so they can be applied back to front as targeted document changes instead of replacing
+ * the whole text. Storage is primitive arrays; replacement strings are the shared
+ * constants from {@link UnicodeDetector.CharacterInfo}.
+ */
+public final class EditScript {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] offsets = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private String[] replacements = new String[INITIAL_CAPACITY];
+    private int size;
+    private int delta;
+    private int issueCount;
+
+    /**
+     * Appends an edit. Offsets must be non-decreasing and must not overlap the previous edit.
+     * A removal directly following another removal is merged into it.
+     */
+    void add(int offset, int length, String replacement) {
+        issueCount++;
+        if (size > 0 && replacement.isEmpty() && replacements[size - 1].isEmpty()
+                && offsets[size - 1] + lengths[size - 1] == offset) {
+            lengths[size - 1] += length;
+            delta -= length;
+            return;
+        }
+
+        if (size == offsets.length) {
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            replacements = Arrays.copyOf(replacements, capacity);
+        }
+
+        offsets[size] = offset;
+        lengths[size] = length;
+        replacements[size] = replacement;
+        size++;
+        delta += replacement.length() - length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of issues the edits fix, which exceeds {@link #size()} when removals were merged.
+     */
+    public int getIssueCount() {
+        return issueCount;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getOffset(int index) {
+        return offsets[index];
+    }
+
+    public int getLength(int index) {
+        return lengths[index];
+    }
+
+    public String getReplacement(int index) {
+        return replacements[index];
+    }
+
+    /**
+     * Length change of the text after applying all edits (negative when characters are removed).
+     */
+    public int getLengthDelta() {
+        return delta;
+    }
+
+    /**
+     * Applies the edits to the text the script was computed for.
+     */
+    public String applyTo(CharSequence text) {
+        StringBuilder result = new StringBuilder(text.length() + delta);
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            result.append(text, position, offsets[i]);
+            result.append(replacements[i]);
+            position = offsets[i] + lengths[i];
+        }
+        result.append(text, position, text.length());
+        return result.toString();
+    }
+}
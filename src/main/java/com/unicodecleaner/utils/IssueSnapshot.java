@@ -0,0 +1,188 @@
+package com.unicodecleaner.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The issues of every category in a text, stored as sorted offsets and table entries and kept
+ * current as the text is edited. After an edit, {@link #update} rescans only the changed span.
+ *
+ * <p>The issues are kept in a gap buffer positioned at the last edit. Issues before the gap
+ * store their offset, issues after it store their distance from the end of the text, so an
+ * edit shifts nothing: it only moves the gap, copying the issues between the previous edit and
+ * this one. Typing in one place therefore costs time proportional to the edit, not to the
+ * number of issues in the text.
+ *
+ * <p>Not thread-safe: {@link #update} changes the list in place and must not run while it is
+ * being read, which write and read actions guarantee for document caches.
+ */
+public final class IssueSnapshot {
+
+    private static final CharacterTable TABLE = UnicodeDetector.TABLE;
+
+    private int[] offsets;
+    private short[] entries;
+    private int gapStart;
+    private int gapEnd;
+    // Length of the text, issues after the gap are stored relative to its end
+    private int textLength;
+
+    private IssueSnapshot(int capacity, int textLength) {
+        offsets = new int[capacity];
+        entries = new short[capacity];
+        gapEnd = capacity;
+        this.textLength = textLength;
+    }
+
+    /**
+     * Scans the whole text.
+     */
+    public static IssueSnapshot scan(CharSequence text) {
+        IssueSnapshot snapshot = new IssueSnapshot(16, text.length());
+        snapshot.scan(text, 0, text.length());
+        return snapshot;
+    }
+
+    /**
+     * Updates the issues after {@code oldLength} chars at {@code offset} were replaced by
+     * {@code newLength} chars. {@code newText} is the text after the change.
+     * One char on each side of the change is rescanned as well, since an edit can complete or
+     * break a surrogate pair across its boundary.
+     */
+    public void update(CharSequence newText, int offset, int oldLength, int newLength) {
+        int dirtyStart = Math.max(0, offset - 1);
+        int oldDirtyEnd = offset + oldLength + 1;
+        int newDirtyEnd = Math.min(newText.length(), offset + newLength + 1);
+
+        int head = lowerBound(dirtyStart);
+        int tail = lowerBound(oldDirtyEnd);
+
+        // Drop the issues in the dirty span, those behind it follow the end of the text
+        moveGap(head);
+        gapEnd += tail - head;
+        textLength = newText.length();
+        scan(newText, dirtyStart, newDirtyEnd);
+    }
+
+    /**
+     * Number of issues of every category.
+     */
+    public int size() {
+        return offsets.length - (gapEnd - gapStart);
+    }
+
+    /**
+     * Returns the issues of the categories in the mask that start in {@code [from, to)}.
+     * {@code text} must be the text this snapshot describes; it is kept for issue contexts.
+     */
+    public List<UnicodeDetector.UnicodeIssue> getIssues(CharSequence text, int from, int to, int categoryMask) {
+        return getIssues(text, from, to, categoryMask, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the first {@code limit} issues of the categories in the mask that start in
+     * {@code [from, to)}. No issue objects are created beyond the limit.
+     */
+    public List<UnicodeDetector.UnicodeIssue> getIssues(CharSequence text, int from, int to, int categoryMask, int limit) {
+        List<UnicodeDetector.UnicodeIssue> issues = new ArrayList<>();
+        int size = size();
+        for (int i = lowerBound(from); i < size && offsetAt(i) < to && issues.size() < limit; i++) {
+            int entry = entryAt(i);
+            if (TABLE.matches(entry, categoryMask)) {
+                UnicodeDetector.CharacterInfo info = TABLE.info(entry);
+                int start = offsetAt(i);
+                issues.add(new UnicodeDetector.UnicodeIssue(start, start + info.length(), info, text));
+            }
+        }
+        return issues;
+    }
+
+    /**
+     * Counts the issues of the categories in the mask that start in {@code [from, to)}.
+     */
+    public int countIssues(int from, int to, int categoryMask) {
+        int count = 0;
+        int size = size();
+        for (int i = lowerBound(from); i < size && offsetAt(i) < to; i++) {
+            if (TABLE.matches(entryAt(i), categoryMask)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int offsetAt(int index) {
+        return index < gapStart ? offsets[index] : offsets[index + gapEnd - gapStart] + textLength;
+    }
+
+    private int entryAt(int index) {
+        return entries[index < gapStart ? index : index + gapEnd - gapStart];
+    }
+
+    /**
+     * Returns the index of the first issue at or after {@code offset}.
+     */
+    private int lowerBound(int offset) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (offsetAt(mid) < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Moves the gap in front of the issue at {@code index}, converting the offsets of the
+     * issues it passes.
+     */
+    private void moveGap(int index) {
+        while (gapStart > index) {
+            gapStart--;
+            gapEnd--;
+            offsets[gapEnd] = offsets[gapStart] - textLength;
+            entries[gapEnd] = entries[gapStart];
+        }
+        while (gapStart < index) {
+            offsets[gapStart] = offsets[gapEnd] + textLength;
+            entries[gapStart] = entries[gapEnd];
+            gapStart++;
+            gapEnd++;
+        }
+    }
+
+    /**
+     * Adds the issues in {@code [from, to)} of the text at the gap, which must be positioned
+     * between the issues before {@code from} and those after {@code to}.
+     */
+    private void scan(CharSequence text, int from, int to) {
+        int all = UnicodeDetector.ALL_CATEGORIES_MASK;
+        for (int i = UnicodeDetector.indexOfIssue(text, from, to, all); i >= 0; ) {
+            int entry = TABLE.lookupAt(text, i);
+            insert(i, entry);
+            i = UnicodeDetector.indexOfIssue(text, i + TABLE.info(entry).length(), to, all);
+        }
+    }
+
+    private void insert(int offset, int entry) {
+        if (gapStart == gapEnd) {
+            int tailLength = offsets.length - gapEnd;
+            int capacity = offsets.length * 2;
+            int[] newOffsets = Arrays.copyOf(offsets, capacity);
+            short[] newEntries = Arrays.copyOf(entries, capacity);
+            System.arraycopy(offsets, gapEnd, newOffsets, capacity - tailLength, tailLength);
+            System.arraycopy(entries, gapEnd, newEntries, capacity - tailLength, tailLength);
+            offsets = newOffsets;
+            entries = newEntries;
+            gapEnd = capacity - tailLength;
+        }
+        offsets[gapStart] = offset;
+        entries[gapStart] = (short) entry;
+        gapStart++;
+    }
+}
@@ -0,0 +1,183 @@
+package com.unicodecleaner.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.Arrays;
+
+/**
+ * Cleans text of any size in constant memory.
+ * Input is read in fixed-size chunks and fed through a {@link TextCleaner}, which carries
+ * surrogate pairs and whitespace runs across chunk boundaries, and the cleaned output of each
+ * chunk is written out before the next one is read. Files are written to a temporary file next
+ * to the original and moved over it at the end, so a failed or interrupted clean never leaves a
+ * half-written file behind. Symbolic links are resolved first, so the file they point to is
+ * replaced and the link stays a link.
+ */
+public final class StreamingCleaner {
+
+    /** Default number of chars read per chunk. */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final int categoryMask;
+    private final boolean normalizeWhitespace;
+    private final int chunkSize;
+
+    public StreamingCleaner(int categoryMask, boolean normalizeWhitespace) {
+        this(categoryMask, normalizeWhitespace, DEFAULT_CHUNK_SIZE);
+    }
+
+    public StreamingCleaner(int categoryMask, boolean normalizeWhitespace, int chunkSize) {
+        if (chunkSize < 2) {
+            throw new IllegalArgumentException("Chunk size must be at least 2: " + chunkSize);
+        }
+        this.categoryMask = categoryMask;
+        this.normalizeWhitespace = normalizeWhitespace;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Cleans everything from the reader into the writer and returns the number of chars written.
+     * Neither stream is closed.
+     */
+    public long clean(Reader in, Writer out) throws IOException {
+        char[] chunk = new char[chunkSize];
+        StringBuilder cleaned = new StringBuilder(chunkSize + 16);
+        TextCleaner cleaner = new TextCleaner(categoryMask, normalizeWhitespace, cleaned);
+        CharSequence view = CharBuffer.wrap(chunk);
+
+        long written = 0;
+        int read;
+        while ((read = in.read(chunk)) >= 0) {
+            cleaner.append(view, 0, read);
+            written += flush(cleaned, out);
+        }
+        cleaner.finish();
+        written += flush(cleaned, out);
+        return written;
+    }
+
+    /**
+     * Cleans a file in place. A byte order mark, if the file starts with the given one, is copied
+     * unchanged. The original permissions, owner, group, ACL and user-defined attributes are kept
+     * where the file system supports them; if one of them cannot be kept, the file is left
+     * untouched and an {@link IOException} says which. If the file cannot be decoded with the
+     * charset, it is left untouched and the decoding error is thrown.
+     */
+    public void cleanFile(Path file, Charset charset, byte[] bom) throws IOException {
+        // Replace the link target, not the link
+        file = file.toRealPath();
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName() + ".", ".tmp");
+        try {
+            try (InputStream input = new BufferedInputStream(Files.newInputStream(file));
+                 OutputStream output = Files.newOutputStream(temp)) {
+                copyBom(input, output, bom);
+
+                // Strict coders: undecodable input fails the clean instead of being rewritten as U+FFFD
+                Reader reader = new BufferedReader(new InputStreamReader(input, charset.newDecoder()), chunkSize);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(output, charset.newEncoder()), chunkSize);
+                clean(reader, writer);
+                writer.flush();
+            }
+
+            copyAttributes(file, temp);
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static long flush(StringBuilder cleaned, Writer out) throws IOException {
+        int length = cleaned.length();
+        if (length > 0) {
+            out.append(cleaned);
+            cleaned.setLength(0);
+        }
+        return length;
+    }
+
+    private static void copyBom(InputStream input, OutputStream output, byte[] bom) throws IOException {
+        if (bom == null || bom.length == 0) {
+            return;
+        }
+        input.mark(bom.length);
+        byte[] head = input.readNBytes(bom.length);
+        if (Arrays.equals(head, bom)) {
+            output.write(head);
+        } else {
+            input.reset();
+        }
+    }
+
+    private static void copyAttributes(Path from, Path to) throws IOException {
+        PosixFileAttributeView posix = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+        if (posix != null) {
+            PosixFileAttributes source = posix.readAttributes();
+            PosixFileAttributeView target = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+            PosixFileAttributes current = target.readAttributes();
+            try {
+                // Only changed when they differ, which needs privileges
+                if (!source.owner().equals(current.owner())) {
+                    target.setOwner(source.owner());
+                }
+                if (!source.group().equals(current.group())) {
+                    target.setGroup(source.group());
+                }
+            } catch (IOException ex) {
+                throw new IOException("Cannot keep the owner and group of " + from + ", file not cleaned: " + ex.getMessage(), ex);
+            }
+            target.setPermissions(source.permissions());
+        }
+
+        AclFileAttributeView acl = Files.getFileAttributeView(from, AclFileAttributeView.class);
+        if (acl != null) {
+            AclFileAttributeView target = Files.getFileAttributeView(to, AclFileAttributeView.class);
+            try {
+                if (!acl.getOwner().equals(target.getOwner())) {
+                    target.setOwner(acl.getOwner());
+                }
+                target.setAcl(acl.getAcl());
+            } catch (IOException ex) {
+                throw new IOException("Cannot keep the owner and ACL of " + from + ", file not cleaned: " + ex.getMessage(), ex);
+            }
+        }
+
+        // The view is there even on file systems mounted without extended attributes
+        if (Files.getFileStore(from).supportsFileAttributeView(UserDefinedFileAttributeView.class)) {
+            UserDefinedFileAttributeView user = Files.getFileAttributeView(from, UserDefinedFileAttributeView.class);
+            UserDefinedFileAttributeView target = Files.getFileAttributeView(to, UserDefinedFileAttributeView.class);
+            try {
+                for (String name : user.list()) {
+                    ByteBuffer value = ByteBuffer.allocate(user.size(name));
+                    user.read(name, value);
+                    value.flip();
+                    target.write(name, value);
+                }
+            } catch (IOException ex) {
+                throw new IOException("Cannot keep the extended attributes of " + from + ", file not cleaned: " + ex.getMessage(), ex);
+            }
+        }
+    }
+}
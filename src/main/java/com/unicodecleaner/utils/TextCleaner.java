@@ -0,0 +1,229 @@
+package com.unicodecleaner.utils;
+
+/**
+ * Forward single-pass cleaner that appends cleaned text to a caller-supplied buffer.
+ * Problematic characters are replaced while copying, so cleaning is linear in the input size
+ * and needs no intermediate issue list.
+ *
+ * <p>With whitespace normalization enabled, the cleaner also collapses runs of spaces and tabs
+ * into one space, caps consecutive newlines at two and trims leading and trailing whitespace,
+ * producing the same result as {@link UnicodeDetector#cleanText(String)}.
+ *
+ * <p>Input may be fed in several chunks; all state, including a surrogate pair split across
+ * two chunks, is carried over between {@link #append} calls. Call {@link #finish()} after the
+ * last chunk, and {@link #reset()} to reuse the instance.
+ */
+public final class TextCleaner {
+
+    private final int categoryMask;
+    private final boolean normalizeWhitespace;
+    private final StringBuilder out;
+
+    // High surrogate at the end of the previous chunk, or 0
+    private char pendingHighSurrogate;
+
+    // Whitespace normalization state
+    private boolean started;
+    private boolean inBlankRun;
+    private int newlineRun;
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+
+    /**
+     * @param categoryMask        Categories to clean (see {@link UnicodeDetector#toMask})
+     * @param normalizeWhitespace Whether to collapse blanks, cap blank lines and trim
+     * @param out                 Buffer the cleaned text is appended to
+     */
+    public TextCleaner(int categoryMask, boolean normalizeWhitespace, StringBuilder out) {
+        this.categoryMask = categoryMask;
+        this.normalizeWhitespace = normalizeWhitespace;
+        this.out = out;
+    }
+
+    /**
+     * Cleans {@code text[start, end)} and appends the result to the output buffer.
+     */
+    public void append(CharSequence text, int start, int end) {
+        if (pendingHighSurrogate != 0) {
+            if (start == end) {
+                return;
+            }
+            start = resumeSurrogatePair(text, start);
+        }
+
+        if (normalizeWhitespace) {
+            appendNormalized(text, start, end);
+        } else {
+            appendReplaced(text, start, end);
+        }
+    }
+
+    /**
+     * Completes the output. Trailing whitespace held back for trimming is dropped.
+     */
+    public void finish() {
+        if (pendingHighSurrogate != 0) {
+            emit(pendingHighSurrogate);
+            pendingHighSurrogate = 0;
+        }
+        pendingWhitespace.setLength(0);
+    }
+
+    /**
+     * Clears the carried-over state so the cleaner can be reused for another text.
+     * The output buffer is left untouched.
+     */
+    public void reset() {
+        pendingHighSurrogate = 0;
+        started = false;
+        inBlankRun = false;
+        newlineRun = 0;
+        pendingWhitespace.setLength(0);
+    }
+
+    private void appendReplaced(CharSequence text, int start, int end) {
+        CharacterTable table = UnicodeDetector.TABLE;
+        char minChar = table.minChar();
+        int runStart = start;
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < minChar) {
+                continue;
+            }
+
+            int entry = table.lookup(c);
+            if (entry == CharacterTable.NONE) {
+                if (!Character.isHighSurrogate(c)) {
+                    continue;
+                }
+                if (i + 1 == end) {
+                    // The low surrogate comes with the next chunk
+                    out.append(text, runStart, i);
+                    pendingHighSurrogate = c;
+                    return;
+                }
+                entry = table.lookupAt(text, i);
+                if (entry == CharacterTable.NONE) {
+                    continue;
+                }
+            }
+
+            UnicodeDetector.CharacterInfo info = table.info(entry);
+            if (table.matches(entry, categoryMask)) {
+                out.append(text, runStart, i);
+                out.append(info.replacement);
+                runStart = i + info.length();
+            }
+            i += info.length() - 1;
+        }
+
+        out.append(text, runStart, end);
+    }
+
+    private void appendNormalized(CharSequence text, int start, int end) {
+        CharacterTable table = UnicodeDetector.TABLE;
+        char minChar = table.minChar();
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= minChar) {
+                int entry = table.lookup(c);
+                if (entry == CharacterTable.NONE && Character.isHighSurrogate(c)) {
+                    if (i + 1 == end) {
+                        // The low surrogate comes with the next chunk
+                        pendingHighSurrogate = c;
+                        return;
+                    }
+                    entry = table.lookupAt(text, i);
+                }
+                if (entry != CharacterTable.NONE && table.matches(entry, categoryMask)) {
+                    UnicodeDetector.CharacterInfo info = table.info(entry);
+                    putAll(info.replacement);
+                    i += info.length() - 1;
+                    continue;
+                }
+            }
+            put(c);
+        }
+    }
+
+    /**
+     * Completes a surrogate pair whose high half ended the previous chunk and returns the
+     * offset processing should continue from.
+     */
+    private int resumeSurrogatePair(CharSequence text, int start) {
+        char high = pendingHighSurrogate;
+        pendingHighSurrogate = 0;
+
+        char low = text.charAt(start);
+        if (Character.isLowSurrogate(low)) {
+            int entry = UnicodeDetector.TABLE.lookupCodePoint(Character.toCodePoint(high, low));
+            if (entry != CharacterTable.NONE && UnicodeDetector.TABLE.matches(entry, categoryMask)) {
+                String replacement = UnicodeDetector.TABLE.info(entry).replacement;
+                if (normalizeWhitespace) {
+                    putAll(replacement);
+                } else {
+                    out.append(replacement);
+                }
+                return start + 1;
+            }
+        }
+
+        emit(high);
+        return start;
+    }
+
+    private void emit(char c) {
+        if (normalizeWhitespace) {
+            put(c);
+        } else {
+            out.append(c);
+        }
+    }
+
+    private void putAll(String replacement) {
+        for (int j = 0; j < replacement.length(); j++) {
+            put(replacement.charAt(j));
+        }
+    }
+
+    private void put(char c) {
+        if (c == ' ' || c == '\t') {
+            // Runs of spaces and tabs collapse into a single space
+            if (!inBlankRun) {
+                putWhitespace(' ');
+                inBlankRun = true;
+            }
+            newlineRun = 0;
+            return;
+        }
+        inBlankRun = false;
+
+        if (c == '\n') {
+            // Three or more consecutive newlines collapse into two
+            if (++newlineRun <= 2) {
+                putWhitespace('\n');
+            }
+            return;
+        }
+        newlineRun = 0;
+
+        if (c <= ' ') {
+            putWhitespace(c);
+        } else {
+            started = true;
+            if (pendingWhitespace.length() > 0) {
+                out.append(pendingWhitespace);
+                pendingWhitespace.setLength(0);
+            }
+            out.append(c);
+        }
+    }
+
+    private void putWhitespace(char c) {
+        // Whitespace before the first or after the last visible character is trimmed
+        if (started) {
+            pendingWhitespace.append(c);
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.unicodecleaner.utils;
 
+import java.nio.CharBuffer;
 import java.util.*;
-import java.util.regex.Pattern;
 
 /**
  * Core Unicode character detection and replacement logic.
@@ -16,7 +16,8 @@ public class UnicodeDetector {
         DASHES("Dashes"),
         PUNCTUATION("Punctuation"),
         FULL_WIDTH("Full-Width Characters"),
-        VARIATION("Variation Selectors");
+        VARIATION("Variation Selectors"),
+        MATH_ALPHANUMERIC("Mathematical Alphanumeric Lookalikes");
         
         private final String displayName;
         
@@ -27,9 +28,25 @@ public class UnicodeDetector {
         public String getDisplayName() {
             return displayName;
         }
+        
+        /**
+         * Bit of this category in a category mask.
+         */
+        public int getMask() {
+            return 1 << ordinal();
+        }
     }
     
+    /**
+     * Category mask with every category enabled.
+     */
+    public static final int ALL_CATEGORIES_MASK = (1 << CharacterCategory.values().length) - 1;
+    
+    private static final int CATEGORY_COUNT = CharacterCategory.values().length;
+    
     public static class CharacterInfo {
+        public final int codePoint;
+        /** The character itself for BMP code points, the high surrogate for supplementary ones. */
         public final char character;
         public final String unicode;
         public final String replacement;
@@ -37,31 +54,73 @@ public class UnicodeDetector {
         public final String description;
         
         public CharacterInfo(char character, String replacement, CharacterCategory category, String description) {
-            this.character = character;
-            this.unicode = String.format("U+%04X", (int) character);
+            this((int) character, replacement, category, description);
+        }
+        
+        public CharacterInfo(int codePoint, String replacement, CharacterCategory category, String description) {
+            this.codePoint = codePoint;
+            this.character = Character.isBmpCodePoint(codePoint) ? (char) codePoint : Character.highSurrogate(codePoint);
+            this.unicode = String.format("U+%04X", codePoint);
             this.replacement = replacement;
             this.category = category;
             this.description = description;
         }
+        
+        /**
+         * Number of chars the character occupies in a string (2 for supplementary code points).
+         */
+        public int length() {
+            return Character.charCount(codePoint);
+        }
+        
+        /**
+         * The character as a string.
+         */
+        public String getText() {
+            return Character.toString(codePoint);
+        }
     }
     
     public static class UnicodeIssue {
+        private static final int CONTEXT_LENGTH = 20;
+        
         public final int startOffset;
         public final int endOffset;
         public final CharacterInfo characterInfo;
-        public final String context;
         
-        public UnicodeIssue(int startOffset, int endOffset, CharacterInfo characterInfo, String context) {
+        // Scanned text, kept so the context can be cut out only when someone asks for it
+        private final CharSequence text;
+        
+        /**
+         * @param text The scanned text the offsets refer to (not a context snippet); must not
+         *             change afterwards, e.g. a string or an immutable document snapshot
+         */
+        public UnicodeIssue(int startOffset, int endOffset, CharacterInfo characterInfo, CharSequence text) {
             this.startOffset = startOffset;
             this.endOffset = endOffset;
             this.characterInfo = characterInfo;
-            this.context = context;
+            this.text = text;
+        }
+        
+        /**
+         * Surrounding text of the issue, computed on demand.
+         */
+        public String getContext() {
+            int start = Math.max(0, startOffset - CONTEXT_LENGTH / 2);
+            int end = Math.min(text.length(), startOffset + CONTEXT_LENGTH / 2);
+            return text.subSequence(start, end).toString();
         }
     }
     
     // Comprehensive mapping of problematic Unicode characters
     private static final Map<Character, CharacterInfo> PROBLEMATIC_CHARS = new HashMap<>();
     
+    // Problematic characters outside the BMP (tags, variation selectors supplement, math lookalikes)
+    private static final Map<Integer, CharacterInfo> SUPPLEMENTARY_CHARS = new HashMap<>();
+    
+    // Primitive lookup table compiled from PROBLEMATIC_CHARS, used by the scan loops
+    static final CharacterTable TABLE;
+    
     static {
         // Hidden/Control Characters
         addChar('\u00AD', "", CharacterCategory.HIDDEN_CONTROL, "Soft hyphen");
@@ -148,12 +207,57 @@ public class UnicodeDetector {
             String description = "Full-width " + getCharacterName(ascii);
             addChar(fullWidth, String.valueOf(ascii), CharacterCategory.FULL_WIDTH, description);
         }
+        
+        // Tag characters, invisible and used to smuggle text (language tag, tag letters, cancel tag)
+        for (int i = 0xE0000; i <= 0xE007F; i++) {
+            addSupplementaryChar(i, "", CharacterCategory.HIDDEN_CONTROL, "Tag character");
+        }
+        
+        // Variation selectors supplement (VS17 - VS256)
+        for (int i = 0xE0100; i <= 0xE01EF; i++) {
+            addSupplementaryChar(i, "", CharacterCategory.VARIATION, "Variation selector " + (i - 0xE0100 + 17));
+        }
+        
+        // Mathematical alphanumeric letters: 13 styles of A-Z followed by a-z
+        String[] letterStyles = {
+            "bold", "italic", "bold italic", "script", "bold script", "fraktur", "double-struck",
+            "bold fraktur", "sans-serif", "sans-serif bold", "sans-serif italic", "sans-serif bold italic",
+            "monospace"
+        };
+        for (int i = 0x1D400; i <= 0x1D6A3; i++) {
+            if (!Character.isDefined(i)) {
+                continue; // holes filled by the Letterlike Symbols block
+            }
+            int letter = (i - 0x1D400) % 52;
+            char ascii = letter < 26 ? (char) ('A' + letter) : (char) ('a' + letter - 26);
+            String description = "Mathematical " + letterStyles[(i - 0x1D400) / 52] + " "
+                    + (letter < 26 ? "capital " : "small ") + ascii;
+            addSupplementaryChar(i, String.valueOf(ascii), CharacterCategory.MATH_ALPHANUMERIC, description);
+        }
+        addSupplementaryChar(0x1D6A4, "i", CharacterCategory.MATH_ALPHANUMERIC, "Mathematical italic small dotless i");
+        addSupplementaryChar(0x1D6A5, "j", CharacterCategory.MATH_ALPHANUMERIC, "Mathematical italic small dotless j");
+        
+        // Mathematical digits: 5 styles of 0-9
+        String[] digitStyles = {"bold", "double-struck", "sans-serif", "sans-serif bold", "monospace"};
+        for (int i = 0x1D7CE; i <= 0x1D7FF; i++) {
+            char ascii = (char) ('0' + (i - 0x1D7CE) % 10);
+            String description = "Mathematical " + digitStyles[(i - 0x1D7CE) / 10] + " digit " + ascii;
+            addSupplementaryChar(i, String.valueOf(ascii), CharacterCategory.MATH_ALPHANUMERIC, description);
+        }
+        
+        List<CharacterInfo> allChars = new ArrayList<>(PROBLEMATIC_CHARS.values());
+        allChars.addAll(SUPPLEMENTARY_CHARS.values());
+        TABLE = CharacterTable.build(allChars);
     }
     
     private static void addChar(char character, String replacement, CharacterCategory category, String description) {
         PROBLEMATIC_CHARS.put(character, new CharacterInfo(character, replacement, category, description));
     }
     
+    private static void addSupplementaryChar(int codePoint, String replacement, CharacterCategory category, String description) {
+        SUPPLEMENTARY_CHARS.put(codePoint, new CharacterInfo(codePoint, replacement, category, description));
+    }
+    
     private static String getCharacterName(char c) {
         switch (c) {
             case '!': return "exclamation mark";
@@ -198,84 +302,348 @@ public class UnicodeDetector {
      * @param text The text to analyze
      * @return List of detected Unicode issues
      */
-    public List<UnicodeIssue> detectIssues(String text) {
+    public List<UnicodeIssue> detectIssues(CharSequence text) {
+        return detectIssues(text, ALL_CATEGORIES_MASK);
+    }
+    
+    /**
+     * Detects issues for specific character categories.
+     */
+    public List<UnicodeIssue> detectIssues(CharSequence text, Set<CharacterCategory> enabledCategories) {
+        return detectIssues(text, toMask(enabledCategories));
+    }
+    
+    /**
+     * Detects issues for the categories in the given mask (see {@link #toMask(Set)}).
+     * Characters from other categories are skipped inside the scan loop and never materialized.
+     * Pass document contents as {@code Document.getImmutableCharSequence()} rather than copying
+     * them into a string; the text must not change while the returned issues are in use.
+     */
+    public List<UnicodeIssue> detectIssues(CharSequence text, int categoryMask) {
+        return detectIssues(text, 0, text.length(), categoryMask);
+    }
+    
+    /**
+     * Detects issues in a char array without copying it.
+     */
+    public List<UnicodeIssue> detectIssues(char[] text, int categoryMask) {
+        return detectIssues(CharBuffer.wrap(text), categoryMask);
+    }
+    
+    /**
+     * Detects issues that start in {@code text[from, to)}, with offsets relative to the whole
+     * text. A surrogate pair starting at {@code to - 1} is still completed from the char after
+     * the range. The text must not change while the returned issues are in use.
+     */
+    public List<UnicodeIssue> detectIssues(CharSequence text, int from, int to, int categoryMask) {
         List<UnicodeIssue> issues = new ArrayList<>();
         
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-            CharacterInfo info = PROBLEMATIC_CHARS.get(c);
-            
-            if (info != null) {
-                String context = getContext(text, i, 20);
-                issues.add(new UnicodeIssue(i, i + 1, info, context));
-            }
+        for (int i = indexOfIssue(text, from, to, categoryMask); i >= 0; ) {
+            CharacterInfo info = TABLE.info(TABLE.lookupAt(text, i));
+            issues.add(new UnicodeIssue(i, i + info.length(), info, text));
+            i = indexOfIssue(text, i + info.length(), to, categoryMask);
         }
         
         return issues;
     }
     
     /**
-     * Detects issues for specific character categories.
+     * Detects issues that start in the given ranges, laid out as for
+     * {@link #computeEdits(CharSequence, int[], int)}.
      */
-    public List<UnicodeIssue> detectIssues(String text, Set<CharacterCategory> enabledCategories) {
-        List<UnicodeIssue> allIssues = detectIssues(text);
-        return allIssues.stream()
-                .filter(issue -> enabledCategories.contains(issue.characterInfo.category))
-                .collect(ArrayList::new, (list, item) -> list.add(item), ArrayList::addAll);
+    public List<UnicodeIssue> detectIssues(CharSequence text, int[] ranges, int categoryMask) {
+        List<UnicodeIssue> issues = new ArrayList<>();
+        
+        for (int r = 0; r < ranges.length; r += 2) {
+            issues.addAll(detectIssues(text, ranges[r], ranges[r + 1], categoryMask));
+        }
+        
+        return issues;
     }
     
     /**
-     * Cleans all Unicode issues in the text.
+     * Cleans all Unicode issues in the text, collapses blanks, caps blank lines and trims it.
      */
     public String cleanText(String text) {
-        StringBuilder cleaned = new StringBuilder(text);
+        StringBuilder cleaned = new StringBuilder(text.length());
+        TextCleaner cleaner = new TextCleaner(ALL_CATEGORIES_MASK, true, cleaned);
+        cleaner.append(text, 0, text.length());
+        cleaner.finish();
+        return cleaned.toString();
+    }
+    
+    /**
+     * Cleans text for specific character categories.
+     */
+    public String cleanText(String text, Set<CharacterCategory> enabledCategories) {
+        return cleanText(text, toMask(enabledCategories));
+    }
+    
+    /**
+     * Cleans text for the categories in the given mask.
+     * Returns the same instance if there is nothing to clean.
+     */
+    public String cleanText(String text, int categoryMask) {
+        int first = indexOfIssue(text, 0, text.length(), categoryMask);
+        if (first < 0) {
+            return text;
+        }
+        
+        StringBuilder cleaned = new StringBuilder(text.length());
+        cleaned.append(text, 0, first);
+        TextCleaner cleaner = new TextCleaner(categoryMask, false, cleaned);
+        cleaner.append(text, first, text.length());
+        cleaner.finish();
+        return cleaned.toString();
+    }
+    
+    /**
+     * Cleans text for the categories in the given mask, appending the result to a
+     * caller-supplied buffer so it can be reused across files.
+     */
+    public void cleanText(CharSequence text, int categoryMask, StringBuilder out) {
+        TextCleaner cleaner = new TextCleaner(categoryMask, false, out);
+        cleaner.append(text, 0, text.length());
+        cleaner.finish();
+    }
+    
+    /**
+     * Computes the edits that clean the text for the categories in the given mask.
+     * Applying them yields the same text as {@link #cleanText(String, int)}, but lets editors
+     * change only the affected ranges.
+     */
+    public EditScript computeEdits(CharSequence text, int categoryMask) {
+        EditScript script = new EditScript();
+        
+        for (int i = indexOfIssue(text, 0, text.length(), categoryMask); i >= 0; ) {
+            CharacterInfo info = TABLE.info(TABLE.lookupAt(text, i));
+            script.add(i, info.length(), info.replacement);
+            i = indexOfIssue(text, i + info.length(), text.length(), categoryMask);
+        }
         
-        // Process from end to beginning to maintain correct indices
-        List<UnicodeIssue> issues = detectIssues(text);
-        issues.sort((a, b) -> Integer.compare(b.startOffset, a.startOffset));
+        return script;
+    }
+    
+    /**
+     * Computes the edits for the issues that start in the given ranges only, for example the
+     * lines changed by a commit. {@code ranges} holds sorted, non-overlapping
+     * {@code [start, end)} offset pairs: {@code start0, end0, start1, end1, ...}.
+     */
+    public EditScript computeEdits(CharSequence text, int[] ranges, int categoryMask) {
+        EditScript script = new EditScript();
+        
+        for (int r = 0; r < ranges.length; r += 2) {
+            int to = ranges[r + 1];
+            for (int i = indexOfIssue(text, ranges[r], to, categoryMask); i >= 0; ) {
+                CharacterInfo info = TABLE.info(TABLE.lookupAt(text, i));
+                script.add(i, info.length(), info.replacement);
+                i = indexOfIssue(text, i + info.length(), to, categoryMask);
+            }
+        }
+        
+        return script;
+    }
+    
+    /**
+     * Counts the issues for the categories in the mask without creating them.
+     */
+    public int countIssues(CharSequence text, int categoryMask) {
+        int count = 0;
         
-        for (UnicodeIssue issue : issues) {
-            cleaned.replace(issue.startOffset, issue.endOffset, issue.characterInfo.replacement);
+        for (int i = indexOfIssue(text, 0, text.length(), categoryMask); i >= 0; ) {
+            count++;
+            i = indexOfIssue(text, i + TABLE.info(TABLE.lookupAt(text, i)).length(), text.length(), categoryMask);
         }
         
-        // Normalize multiple spaces (but preserve newlines)
-        String result = cleaned.toString();
-        result = result.replaceAll("[ \\t]+", " ");
+        return count;
+    }
+    
+    /**
+     * Counts the issues that start in the given ranges, laid out as for
+     * {@link #computeEdits(CharSequence, int[], int)}.
+     */
+    public int countIssues(CharSequence text, int[] ranges, int categoryMask) {
+        int count = 0;
         
-        // Clean up excessive blank lines
-        result = result.replaceAll("\\n{3,}", "\n\n");
+        for (int r = 0; r < ranges.length; r += 2) {
+            int to = ranges[r + 1];
+            for (int i = indexOfIssue(text, ranges[r], to, categoryMask); i >= 0; ) {
+                count++;
+                i = indexOfIssue(text, i + TABLE.info(TABLE.lookupAt(text, i)).length(), to, categoryMask);
+            }
+        }
         
-        return result.trim();
+        return count;
     }
     
     /**
-     * Cleans text for specific character categories.
+     * Returns whether the text has any issue for the categories in the mask, stopping at the
+     * first one.
      */
-    public String cleanText(String text, Set<CharacterCategory> enabledCategories) {
-        StringBuilder cleaned = new StringBuilder(text);
+    public boolean containsIssue(CharSequence text, int categoryMask) {
+        return indexOfIssue(text, 0, text.length(), categoryMask) >= 0;
+    }
+    
+    /**
+     * Counts the issues for the categories in the mask per category, indexed by
+     * {@link CharacterCategory#ordinal()}. The array covers every category; categories outside
+     * the mask are zero.
+     */
+    public int[] countByCategory(CharSequence text, int categoryMask) {
+        int[] counts = new int[CATEGORY_COUNT];
         
-        List<UnicodeIssue> issues = detectIssues(text, enabledCategories);
-        issues.sort((a, b) -> Integer.compare(b.startOffset, a.startOffset));
+        for (int i = indexOfIssue(text, 0, text.length(), categoryMask); i >= 0; ) {
+            CharacterInfo info = TABLE.info(TABLE.lookupAt(text, i));
+            counts[info.category.ordinal()]++;
+            i = indexOfIssue(text, i + info.length(), text.length(), categoryMask);
+        }
         
-        for (UnicodeIssue issue : issues) {
-            cleaned.replace(issue.startOffset, issue.endOffset, issue.characterInfo.replacement);
+        return counts;
+    }
+    
+    /**
+     * Returns the offset of the first issue starting in {@code [from, to)}, or -1 if there is none.
+     * Strings and array-backed buffers get loops of their own, so the per-char access is a
+     * direct array read or an intrinsic instead of an interface call.
+     */
+    static int indexOfIssue(CharSequence text, int from, int to, int categoryMask) {
+        if (categoryMask == 0) {
+            return -1;
+        }
+        if (text instanceof String) {
+            return indexOfIssue((String) text, from, to, categoryMask);
+        }
+        if (text instanceof CharBuffer && ((CharBuffer) text).hasArray()) {
+            CharBuffer buffer = (CharBuffer) text;
+            int base = buffer.arrayOffset() + buffer.position();
+            int index = indexOfIssue(buffer.array(), base + from, base + to, base + buffer.length(), categoryMask);
+            return index < 0 ? -1 : index - base;
         }
         
-        return cleaned.toString();
+        char minChar = TABLE.minChar();
+        
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < minChar) {
+                continue; // ASCII fast path, no lookup needed
+            }
+            
+            int entry = TABLE.lookup(c);
+            if (entry == CharacterTable.NONE) {
+                if (!Character.isHighSurrogate(c)) {
+                    continue;
+                }
+                // Supplementary code point; only reached for non-BMP text
+                entry = TABLE.lookupAt(text, i);
+                if (entry == CharacterTable.NONE) {
+                    continue;
+                }
+            }
+            
+            if (TABLE.matches(entry, categoryMask)) {
+                return i;
+            }
+        }
+        
+        return -1;
+    }
+    
+    private static int indexOfIssue(String text, int from, int to, int categoryMask) {
+        char minChar = TABLE.minChar();
+        
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < minChar) {
+                continue;
+            }
+            
+            int entry = TABLE.lookup(c);
+            if (entry == CharacterTable.NONE) {
+                if (!Character.isHighSurrogate(c)) {
+                    continue;
+                }
+                entry = TABLE.lookupAt(text, i);
+                if (entry == CharacterTable.NONE) {
+                    continue;
+                }
+            }
+            
+            if (TABLE.matches(entry, categoryMask)) {
+                return i;
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Array variant; {@code limit} is the end of the valid chars, used to complete a surrogate
+     * pair that starts at {@code to - 1}.
+     */
+    private static int indexOfIssue(char[] text, int from, int to, int limit, int categoryMask) {
+        char minChar = TABLE.minChar();
+        
+        for (int i = from; i < to; i++) {
+            char c = text[i];
+            if (c < minChar) {
+                continue;
+            }
+            
+            int entry = TABLE.lookup(c);
+            if (entry == CharacterTable.NONE) {
+                if (!Character.isHighSurrogate(c) || i + 1 >= limit || !Character.isLowSurrogate(text[i + 1])) {
+                    continue;
+                }
+                entry = TABLE.lookupCodePoint(Character.toCodePoint(c, text[i + 1]));
+                if (entry == CharacterTable.NONE) {
+                    continue;
+                }
+            }
+            
+            if (TABLE.matches(entry, categoryMask)) {
+                return i;
+            }
+        }
+        
+        return -1;
     }
     
     /**
      * Gets character information for a specific character.
      */
     public static CharacterInfo getCharacterInfo(char character) {
-        return PROBLEMATIC_CHARS.get(character);
+        int entry = TABLE.lookup(character);
+        return entry == CharacterTable.NONE ? null : TABLE.info(entry);
+    }
+    
+    /**
+     * Gets character information for any code point, including supplementary ones.
+     */
+    public static CharacterInfo getCharacterInfo(int codePoint) {
+        int entry = TABLE.lookupCodePoint(codePoint);
+        return entry == CharacterTable.NONE ? null : TABLE.info(entry);
     }
     
     /**
      * Checks if a character is problematic.
      */
     public static boolean isProblematicCharacter(char character) {
-        return PROBLEMATIC_CHARS.containsKey(character);
+        return TABLE.lookup(character) != CharacterTable.NONE;
+    }
+    
+    /**
+     * Checks if a code point is problematic, including supplementary ones.
+     */
+    public static boolean isProblematicCodePoint(int codePoint) {
+        return TABLE.lookupCodePoint(codePoint) != CharacterTable.NONE;
+    }
+    
+    /**
+     * Returns a hash of the character table. Persisted scan results are only valid for the
+     * table version they were computed with.
+     */
+    public static int getTableFingerprint() {
+        return TABLE.fingerprint();
     }
     
     /**
@@ -285,9 +653,15 @@ public class UnicodeDetector {
         return EnumSet.allOf(CharacterCategory.class);
     }
     
-    private String getContext(String text, int position, int maxLength) {
-        int start = Math.max(0, position - maxLength / 2);
-        int end = Math.min(text.length(), position + maxLength / 2);
-        return text.substring(start, end);
+    /**
+     * Compiles a set of categories into a category mask for the mask-based scan methods.
+     */
+    public static int toMask(Set<CharacterCategory> categories) {
+        int mask = 0;
+        for (CharacterCategory category : categories) {
+            mask |= category.getMask();
+        }
+        return mask;
     }
+
 }
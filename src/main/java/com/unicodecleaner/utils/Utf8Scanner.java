@@ -0,0 +1,221 @@
+package com.unicodecleaner.utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Detects Unicode issues directly in UTF-8 encoded bytes, without decoding them to a string.
+ * Every problematic character is non-ASCII, so ASCII runs are skipped eight bytes at a time
+ * with a high-bit test on whole words. Multibyte sequences are only decoded if their lead byte
+ * can start a character of an enabled category; the decoded code point then goes through the
+ * same table as {@link UnicodeDetector}.
+ *
+ * <p>Malformed sequences (overlong forms, truncated sequences, stray continuation bytes) are
+ * never reported and count as one char per replaced prefix, the way the JDK decoder turns them
+ * into U+FFFD. Counts and char offsets are therefore identical to decoding the bytes with UTF-8
+ * and running the detector on the result.
+ */
+public final class Utf8Scanner {
+
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private static final CharacterTable TABLE = UnicodeDetector.TABLE;
+
+    /**
+     * Receives the issues found by {@link #scan}.
+     */
+    public interface IssueHandler {
+        /**
+         * Called for each issue. The byte offset is the start of the UTF-8 sequence in the array,
+         * the char offset is the UTF-16 offset of the character relative to the scan start.
+         */
+        void issue(int byteOffset, long charOffset, UnicodeDetector.CharacterInfo info);
+    }
+
+    private Utf8Scanner() {
+    }
+
+    /**
+     * Checks whether the range contains only ASCII bytes, in which case it has no issues.
+     */
+    public static boolean isAscii(byte[] bytes, int from, int to) {
+        return indexOfNonAscii(bytes, from, to) < 0;
+    }
+
+    /**
+     * Counts the issues of the categories in the mask in a range of UTF-8 bytes.
+     */
+    public static int countIssues(byte[] utf8, int from, int to, int categoryMask) {
+        return scan(utf8, from, to, categoryMask, null);
+    }
+
+    /**
+     * Scans a range of UTF-8 bytes, passes each issue to the handler if there is one and returns
+     * the number of issues. A sequence cut off at {@code to} is treated as malformed, so callers
+     * scanning in windows should end each window on a sequence boundary.
+     */
+    public static int scan(byte[] utf8, int from, int to, int categoryMask, IssueHandler handler) {
+        if (categoryMask == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        // UTF-16 offset = byte offset - charAdjust, updated after each multibyte sequence
+        long charAdjust = from;
+
+        int i = indexOfNonAscii(utf8, from, to);
+        while (i >= 0) {
+            int lead = utf8[i] & 0xFF;
+            int length = sequenceLength(lead);
+            int valid = length == 0 ? 1 : validPrefixLength(utf8, i, length, to);
+            if (valid < length || length == 0) {
+                // Malformed: the decoder turns the valid prefix into a single U+FFFD
+                charAdjust += valid - 1;
+                i = indexOfNonAscii(utf8, i + valid, to);
+                continue;
+            }
+
+            if ((TABLE.leadByteMask(lead) & categoryMask) != 0) {
+                int entry = TABLE.lookupCodePoint(decode(utf8, i, length));
+                if (entry != CharacterTable.NONE && TABLE.matches(entry, categoryMask)) {
+                    count++;
+                    if (handler != null) {
+                        handler.issue(i, i - charAdjust, TABLE.info(entry));
+                    }
+                }
+            }
+
+            // A 4-byte sequence is a surrogate pair, every shorter one a single char
+            charAdjust += length == 4 ? 2 : length - 1;
+            i = indexOfNonAscii(utf8, i + length, to);
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the number of UTF-16 chars the range decodes to, counting malformed input the same
+     * way as {@link #scan}. Pure ASCII runs are measured eight bytes at a time.
+     */
+    public static long utf16Length(byte[] utf8, int from, int to) {
+        long charAdjust = 0;
+        int i = indexOfNonAscii(utf8, from, to);
+        while (i >= 0) {
+            int length = sequenceLength(utf8[i] & 0xFF);
+            int valid = length == 0 ? 1 : validPrefixLength(utf8, i, length, to);
+            if (valid < length || length == 0) {
+                charAdjust += valid - 1;
+                i = indexOfNonAscii(utf8, i + valid, to);
+                continue;
+            }
+            charAdjust += length == 4 ? 2 : length - 1;
+            i = indexOfNonAscii(utf8, i + length, to);
+        }
+        return to - from - charAdjust;
+    }
+
+    /**
+     * Returns the end offset in {@code [from, to]} at which the range can be split without
+     * cutting a multibyte sequence in two: {@code to} if the range ends on a complete sequence,
+     * otherwise the start of the trailing incomplete one. Only bytes before {@code to} are read.
+     */
+    public static int sequenceBoundary(byte[] utf8, int from, int to) {
+        for (int i = to - 1; i >= from && to - i <= 4; i--) {
+            int b = utf8[i] & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                int length = b < 0x80 ? 1 : Math.max(1, sequenceLength(b));
+                return i + length > to ? i : to;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Returns the index of the first byte with the high bit set, or -1 if there is none.
+     */
+    private static int indexOfNonAscii(byte[] bytes, int from, int to) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = (long) LONG_VIEW.get(bytes, i);
+            if ((word & HIGH_BITS) != 0) {
+                // Lowest set high bit is the first non-ASCII byte in little-endian order
+                return i + (Long.numberOfTrailingZeros(word & HIGH_BITS) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (bytes[i] < 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the sequence length announced by a lead byte, or 0 if it cannot start a sequence.
+     */
+    private static int sequenceLength(int lead) {
+        if (lead < 0xC2) {
+            return 0; // continuation byte or overlong 2-byte lead
+        } else if (lead < 0xE0) {
+            return 2;
+        } else if (lead < 0xF0) {
+            return 3;
+        } else if (lead < 0xF5) {
+            return 4;
+        }
+        return 0;
+    }
+
+    /**
+     * Decodes a well-formed sequence of the given length.
+     */
+    private static int decode(byte[] utf8, int i, int length) {
+        int lead = utf8[i] & 0xFF;
+        switch (length) {
+            case 2:
+                return (lead & 0x1F) << 6 | utf8[i + 1] & 0x3F;
+            case 3:
+                return (lead & 0x0F) << 12 | (utf8[i + 1] & 0x3F) << 6 | utf8[i + 2] & 0x3F;
+            default:
+                return (lead & 0x07) << 18 | (utf8[i + 1] & 0x3F) << 12
+                        | (utf8[i + 2] & 0x3F) << 6 | utf8[i + 3] & 0x3F;
+        }
+    }
+
+    /**
+     * Returns how many bytes of the sequence starting at {@code i} are valid, which equals
+     * {@code length} for a well-formed sequence. Overlong forms and code points above U+10FFFF
+     * are rejected through the allowed range of the second byte. Encoded surrogates are accepted
+     * like the JDK decoder does; they decode to a single char that is never problematic.
+     */
+    private static int validPrefixLength(byte[] utf8, int i, int length, int to) {
+        int lead = utf8[i] & 0xFF;
+        int min = 0x80;
+        int max = 0xBF;
+        if (lead == 0xE0) {
+            min = 0xA0;
+        } else if (lead == 0xF0) {
+            min = 0x90;
+        } else if (lead == 0xF4) {
+            max = 0x8F;
+        }
+
+        if (i + 1 >= to) {
+            return 1;
+        }
+        int second = utf8[i + 1] & 0xFF;
+        if (second < min || second > max) {
+            return 1;
+        }
+
+        int valid = 2;
+        while (valid < length && i + valid < to && (utf8[i + valid] & 0xC0) == 0x80) {
+            valid++;
+        }
+        return valid;
+    }
+}
@@ -0,0 +1,230 @@
+package com.unicodecleaner.utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scans UTF-8 files of any size for Unicode issues without decoding them into memory.
+ * The file is read one window at a time into a single reused buffer and each window is
+ * matched with {@link Utf8Scanner}, so memory use is bounded by the window size. Windows end
+ * on a UTF-8 sequence boundary and the next window starts there, so no character is cut in
+ * two or reported twice.
+ *
+ * <p>Plain channel reads are used rather than memory mapping: the word-at-a-time matcher works
+ * on heap arrays, so a mapping would be copied anyway, and mappings cannot be released before
+ * they are garbage collected.
+ */
+public final class WindowedFileScanner {
+
+    /** Default window size, large enough to amortize the cost of each read. */
+    public static final int DEFAULT_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    // Code points of context on each side of a located issue
+    private static final int CONTEXT_CODE_POINTS = 10;
+
+    private final int categoryMask;
+    private final int windowSize;
+
+    /**
+     * Receives the issues found in a file.
+     */
+    public interface IssueHandler {
+        /**
+         * Called for each issue with its byte offset in the file and its char offset in the
+         * decoded text, which does not include a byte order mark.
+         */
+        void issue(long byteOffset, long charOffset, UnicodeDetector.CharacterInfo info);
+    }
+
+    /**
+     * An issue with its position in the decoded text. Lines are counted by {@code '\n'} and the
+     * column is in chars from the start of the line.
+     */
+    public static final class LocatedIssue {
+        public final long byteOffset;
+        public final long charOffset;
+        public final int line;
+        public final int column;
+        public final UnicodeDetector.CharacterInfo info;
+        /** Text around the issue, cut at window ends. */
+        public final String context;
+
+        LocatedIssue(long byteOffset, long charOffset, int line, int column,
+                     UnicodeDetector.CharacterInfo info, String context) {
+            this.byteOffset = byteOffset;
+            this.charOffset = charOffset;
+            this.line = line;
+            this.column = column;
+            this.info = info;
+            this.context = context;
+        }
+    }
+
+    public WindowedFileScanner(int categoryMask) {
+        this(categoryMask, DEFAULT_WINDOW_SIZE);
+    }
+
+    public WindowedFileScanner(int categoryMask, int windowSize) {
+        if (windowSize < 8) {
+            throw new IllegalArgumentException("Window size must hold a BOM and a full UTF-8 sequence: " + windowSize);
+        }
+        this.categoryMask = categoryMask;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Counts the issues in a UTF-8 file.
+     */
+    public long countIssues(Path file) throws IOException {
+        return scan(file, null);
+    }
+
+    /**
+     * Scans a UTF-8 file, passes each issue to the handler if there is one and returns the
+     * number of issues.
+     */
+    public long scan(Path file, IssueHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] window = new byte[(int) Math.min(windowSize, Math.max(size, 8))];
+            ByteBuffer buffer = ByteBuffer.wrap(window);
+
+            long count = 0;
+            long position = 0;
+            long charBase = 0;
+            boolean first = true;
+
+            while (position < size) {
+                int length = (int) Math.min(window.length, size - position);
+                read(channel, buffer, position, length);
+
+                int start = first && startsWithBom(window, length) ? UTF8_BOM.length : 0;
+                first = false;
+                int end = position + length < size ? Utf8Scanner.sequenceBoundary(window, start, length) : length;
+
+                if (handler != null) {
+                    long bytePosition = position;
+                    long windowCharBase = charBase;
+                    count += Utf8Scanner.scan(window, start, end, categoryMask, (byteOffset, charOffset, info) ->
+                            handler.issue(bytePosition + byteOffset, windowCharBase + charOffset, info));
+                    charBase += Utf8Scanner.utf16Length(window, start, end);
+                } else {
+                    count += Utf8Scanner.countIssues(window, start, end, categoryMask);
+                }
+
+                position += end;
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * Returns the first {@code limit} issues of a UTF-8 file with their lines and columns.
+     * Reading stops with the window holding the last of them, so only as much of the file is
+     * read as it takes to find them.
+     */
+    public List<LocatedIssue> findIssues(Path file, int limit) throws IOException {
+        List<LocatedIssue> issues = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] window = new byte[(int) Math.min(windowSize, Math.max(size, 8))];
+            ByteBuffer buffer = ByteBuffer.wrap(window);
+
+            long position = 0;
+            long charBase = 0;
+            boolean first = true;
+            int line = 0;
+            // Char offset of the start of the current line
+            long lineStart = 0;
+
+            while (position < size && issues.size() < limit) {
+                int length = (int) Math.min(window.length, size - position);
+                read(channel, buffer, position, length);
+
+                int start = first && startsWithBom(window, length) ? UTF8_BOM.length : 0;
+                first = false;
+                int end = position + length < size ? Utf8Scanner.sequenceBoundary(window, start, length) : length;
+
+                List<int[]> found = new ArrayList<>();
+                List<UnicodeDetector.CharacterInfo> infos = new ArrayList<>();
+                int wanted = limit - issues.size();
+                Utf8Scanner.scan(window, start, end, categoryMask, (byteOffset, charOffset, info) -> {
+                    if (found.size() < wanted) {
+                        found.add(new int[]{byteOffset, (int) charOffset});
+                        infos.add(info);
+                    }
+                });
+
+                // Count lines up to each issue, then to the window end for the next window
+                int lineScan = start;
+                long lineScanChar = charBase;
+                for (int i = 0; i <= found.size(); i++) {
+                    int to = i < found.size() ? found.get(i)[0] : end;
+                    for (int b = lineScan; b < to; b++) {
+                        if (window[b] == '\n') {
+                            line++;
+                            lineScanChar += Utf8Scanner.utf16Length(window, lineScan, b + 1);
+                            lineScan = b + 1;
+                            lineStart = lineScanChar;
+                        }
+                    }
+                    if (i < found.size()) {
+                        long charOffset = charBase + found.get(i)[1];
+                        issues.add(new LocatedIssue(position + to, charOffset, line, (int) (charOffset - lineStart),
+                                infos.get(i), context(window, start, end, to)));
+                    }
+                }
+
+                charBase += Utf8Scanner.utf16Length(window, start, end);
+                position += end;
+            }
+        }
+        return issues;
+    }
+
+    /**
+     * Decodes up to {@link #CONTEXT_CODE_POINTS} code points either side of an issue.
+     */
+    private static String context(byte[] window, int start, int end, int offset) {
+        int from = offset;
+        for (int n = 0; n < CONTEXT_CODE_POINTS && from > start; n++) {
+            do {
+                from--;
+            } while (from > start && (window[from] & 0xC0) == 0x80);
+        }
+        int to = offset;
+        for (int n = 0; n <= CONTEXT_CODE_POINTS && to < end; n++) {
+            do {
+                to++;
+            } while (to < end && (window[to] & 0xC0) == 0x80);
+        }
+        return new String(window, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads {@code length} bytes at {@code position} into the start of the buffer.
+     */
+    private static void read(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("File truncated while scanning at byte " + (position + buffer.position()));
+            }
+        }
+    }
+
+    private static boolean startsWithBom(byte[] window, int length) {
+        return length >= UTF8_BOM.length
+                && window[0] == UTF8_BOM[0] && window[1] == UTF8_BOM[1] && window[2] == UTF8_BOM[2];
+    }
+}
@@ -0,0 +1,202 @@
+package com.unicodecleaner.vcs;
+
+import com.intellij.diff.comparison.ComparisonManager;
+import com.intellij.diff.comparison.ComparisonPolicy;
+import com.intellij.diff.comparison.DiffTooBigException;
+import com.intellij.diff.fragments.LineFragment;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vcs.ProjectLevelVcsManager;
+import com.intellij.openapi.vcs.VcsException;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.ChangeListManager;
+import com.intellij.openapi.vcs.changes.ContentRevision;
+import com.intellij.openapi.vcs.ex.LineStatusTracker;
+import com.intellij.openapi.vcs.ex.LineStatusTrackerManager;
+import com.intellij.openapi.vcs.ex.Range;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Offsets of the lines changed between two versions of a text, as the sorted
+ * {@code [start, end)} pairs taken by the range overloads of
+ * {@link com.unicodecleaner.utils.UnicodeDetector}.
+ *
+ * <p>For documents, the base version is the last committed revision. Files outside version
+ * control, unversioned and newly added files count as changed as a whole.
+ */
+public final class ChangedRanges {
+
+    private static final int[] NONE = new int[0];
+
+    /**
+     * Changed ranges together with the document text and modification stamp they refer to.
+     */
+    public static final class Snapshot {
+        public final CharSequence text;
+        public final long modificationStamp;
+        public final int[] ranges;
+
+        Snapshot(@NotNull CharSequence text, long modificationStamp, int @NotNull [] ranges) {
+            this.text = text;
+            this.modificationStamp = modificationStamp;
+            this.ranges = ranges;
+        }
+    }
+
+    private ChangedRanges() {
+    }
+
+    /**
+     * Returns the ranges of {@code after} that differ from {@code before}. Without a previous
+     * version, or when the texts are too different to compare, the whole text counts as changed.
+     */
+    public static int @NotNull [] compute(@Nullable CharSequence before,
+                                         @NotNull CharSequence after,
+                                         @NotNull ProgressIndicator indicator) {
+        if (before == null) {
+            return whole(after);
+        }
+
+        List<LineFragment> fragments;
+        try {
+            fragments = ComparisonManager.getInstance().compareLines(before, after, ComparisonPolicy.DEFAULT, indicator);
+        } catch (DiffTooBigException ex) {
+            return whole(after);
+        }
+
+        int[] ranges = new int[fragments.size() * 2];
+        int size = 0;
+        for (LineFragment fragment : fragments) {
+            // Pure deletions leave nothing in the new text to check
+            if (fragment.getEndOffset2() > fragment.getStartOffset2()) {
+                ranges[size++] = fragment.getStartOffset2();
+                ranges[size++] = fragment.getEndOffset2();
+            }
+        }
+        return Arrays.copyOf(ranges, size);
+    }
+
+    public static int @NotNull [] whole(@NotNull CharSequence text) {
+        return new int[]{0, text.length()};
+    }
+
+    /**
+     * Whether the file has local changes, or is not tracked as a whole, so that a
+     * changed-lines-only pass has anything to do in it.
+     */
+    public static boolean hasChanges(@NotNull Project project, @NotNull VirtualFile file) {
+        if (ProjectLevelVcsManager.getInstance(project).getVcsFor(file) == null) {
+            return true;
+        }
+        ChangeListManager changeListManager = ChangeListManager.getInstance(project);
+        return changeListManager.getChange(file) != null || changeListManager.isUnversioned(file);
+    }
+
+    /**
+     * Returns the changed ranges of the document as far as they are known without loading a
+     * revision: from the line status tracker of an open file, or from the file status.
+     * Returns {@code null} for a modified file without a tracker. Must be called in a read
+     * action; cheap enough for highlighting.
+     */
+    public static int @Nullable [] getKnownRanges(@NotNull Project project, @NotNull Document document) {
+        VirtualFile file = FileDocumentManager.getInstance().getFile(document);
+        if (file == null || ProjectLevelVcsManager.getInstance(project).getVcsFor(file) == null) {
+            return whole(document.getImmutableCharSequence());
+        }
+
+        LineStatusTracker<?> tracker = LineStatusTrackerManager.getInstance(project).getLineStatusTracker(document);
+        if (tracker != null) {
+            List<? extends Range> ranges = tracker.getRanges();
+            if (ranges != null) {
+                return toOffsets(document, ranges);
+            }
+        }
+
+        ChangeListManager changeListManager = ChangeListManager.getInstance(project);
+        if (changeListManager.isUnversioned(file)) {
+            return whole(document.getImmutableCharSequence());
+        }
+        Change change = changeListManager.getChange(file);
+        if (change == null) {
+            return NONE;
+        }
+        return change.getBeforeRevision() == null ? whole(document.getImmutableCharSequence()) : null;
+    }
+
+    /**
+     * Returns the changed ranges of the document, diffing it against its last committed
+     * revision when they are not known otherwise. Loads revision contents, so it must be
+     * called on a background thread outside of read actions.
+     */
+    public static int @NotNull [] computeRanges(@NotNull Project project,
+                                               @NotNull Document document,
+                                               @NotNull ProgressIndicator indicator) {
+        return computeSnapshot(project, document, indicator).ranges;
+    }
+
+    /**
+     * Like {@link #computeRanges}, but also returns the text and modification stamp the ranges
+     * were computed for, so callers can scan that text and detect later changes.
+     */
+    public static @NotNull Snapshot computeSnapshot(@NotNull Project project,
+                                                    @NotNull Document document,
+                                                    @NotNull ProgressIndicator indicator) {
+        Snapshot known = ReadAction.compute(() -> {
+            int[] ranges = getKnownRanges(project, document);
+            return ranges == null ? null
+                : new Snapshot(document.getImmutableCharSequence(), document.getModificationStamp(), ranges);
+        });
+        if (known != null) {
+            return known;
+        }
+
+        VirtualFile file = FileDocumentManager.getInstance().getFile(document);
+        Change change = file != null ? ChangeListManager.getInstance(project).getChange(file) : null;
+        String before = change != null ? loadBeforeContent(change) : null;
+        // Immutable snapshot, so the diff itself runs outside the read action
+        Snapshot current = ReadAction.compute(
+            () -> new Snapshot(document.getImmutableCharSequence(), document.getModificationStamp(), NONE));
+        return new Snapshot(current.text, current.modificationStamp, compute(before, current.text, indicator));
+    }
+
+    /**
+     * Loads the content of the change's previous revision, or returns {@code null} if there is
+     * none or it cannot be loaded.
+     */
+    private static @Nullable String loadBeforeContent(@NotNull Change change) {
+        ContentRevision before = change.getBeforeRevision();
+        if (before == null) {
+            return null;
+        }
+        try {
+            return before.getContent();
+        } catch (VcsException ex) {
+            // Without the old version the whole file is checked
+            System.err.println("Failed to load previous revision: " + before.getFile().getName() + " - " + ex.getMessage());
+            return null;
+        }
+    }
+
+    private static int @NotNull [] toOffsets(@NotNull Document document, @NotNull List<? extends Range> ranges) {
+        int[] offsets = new int[ranges.size() * 2];
+        int size = 0;
+        for (Range range : ranges) {
+            // Deleted lines have no lines in the current text
+            if (range.getLine2() > range.getLine1()) {
+                offsets[size++] = document.getLineStartOffset(range.getLine1());
+                offsets[size++] = range.getLine2() < document.getLineCount()
+                        ? document.getLineStartOffset(range.getLine2())
+                        : document.getTextLength();
+            }
+        }
+        return Arrays.copyOf(offsets, size);
+    }
+}
@@ -0,0 +1,232 @@
+package com.unicodecleaner.vcs;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vcs.CheckinProjectPanel;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.checkin.CheckinHandler;
+import com.intellij.openapi.vcs.ui.RefreshableOnComponent;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.components.JBCheckBox;
+import com.unicodecleaner.services.EditScriptApplier;
+import com.unicodecleaner.settings.UnicodeCleanerSettings;
+import com.unicodecleaner.utils.EditScript;
+import com.unicodecleaner.utils.UnicodeDetector;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.JComponent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Checks the files being committed for Unicode issues before the commit.
+ * Only the lines each change adds or modifies are scanned, so the check takes time
+ * proportional to the diff rather than to the files. Depending on the settings, issues are
+ * fixed before the commit, block it, or are shown in a summary that lets the user decide.
+ */
+class UnicodeCheckinHandler extends CheckinHandler {
+
+    // Files listed by name in the summary, the rest are counted
+    private static final int SUMMARY_FILE_LIMIT = 10;
+
+    private static final class FileIssues {
+        final VirtualFile file;
+        final Document document;
+        final long modificationStamp;
+        final int[] ranges;
+        final int issueCount;
+
+        FileIssues(VirtualFile file, Document document, long modificationStamp, int[] ranges, int issueCount) {
+            this.file = file;
+            this.document = document;
+            this.modificationStamp = modificationStamp;
+            this.ranges = ranges;
+            this.issueCount = issueCount;
+        }
+    }
+
+    private final CheckinProjectPanel panel;
+    private final Project project;
+    private final UnicodeDetector detector = new UnicodeDetector();
+
+    UnicodeCheckinHandler(@NotNull CheckinProjectPanel panel) {
+        this.panel = panel;
+        this.project = panel.getProject();
+    }
+
+    @Override
+    public @Nullable RefreshableOnComponent getBeforeCheckinConfigurationPanel() {
+        JBCheckBox checkBox = new JBCheckBox("Check for problematic Unicode characters");
+        return new RefreshableOnComponent() {
+            @Override
+            public @NotNull JComponent getComponent() {
+                return checkBox;
+            }
+
+            @Override
+            public void saveState() {
+                UnicodeCleanerSettings.getInstance().setPreCommitCheckEnabled(checkBox.isSelected());
+            }
+
+            @Override
+            public void restoreState() {
+                checkBox.setSelected(UnicodeCleanerSettings.getInstance().isPreCommitCheckEnabled());
+            }
+        };
+    }
+
+    @Override
+    public ReturnResult beforeCheckin() {
+        UnicodeCleanerSettings settings = UnicodeCleanerSettings.getInstance();
+        if (!settings.isPreCommitCheckEnabled()) {
+            return ReturnResult.COMMIT;
+        }
+
+        int categoryMask = settings.getEnabledCategoryMask();
+        Collection<Change> changes = panel.getSelectedChanges();
+        List<FileIssues> found = new ArrayList<>();
+
+        boolean completed = ProgressManager.getInstance().runProcessWithProgressSynchronously(
+            () -> found.addAll(findIssues(changes, settings, categoryMask,
+                ProgressManager.getInstance().getProgressIndicator())),
+            "Checking Unicode Characters",
+            true,
+            project
+        );
+        if (!completed) {
+            return ReturnResult.CANCEL;
+        }
+
+        int totalIssues = 0;
+        for (FileIssues fileIssues : found) {
+            totalIssues += fileIssues.issueCount;
+        }
+        if (totalIssues == 0) {
+            return ReturnResult.COMMIT;
+        }
+
+        if (settings.shouldAutoFixBeforeCommit()) {
+            fixIssues(found, categoryMask);
+            if (settings.shouldShowCommitSummary()) {
+                Messages.showInfoMessage(
+                    project,
+                    String.format("Fixed %d Unicode issue(s) in %d file(s) before commit.", totalIssues, found.size()),
+                    "Unicode Cleaner"
+                );
+            }
+            return ReturnResult.COMMIT;
+        }
+
+        String summary = buildSummary(found, totalIssues);
+        if (settings.shouldBlockCommitsWithIssues()) {
+            Messages.showErrorDialog(
+                project,
+                summary + "\nClean the files or turn off blocking in the Unicode Cleaner settings.",
+                "Commit Blocked by Unicode Cleaner"
+            );
+            return ReturnResult.CANCEL;
+        }
+        if (!settings.shouldShowCommitSummary()) {
+            return ReturnResult.COMMIT;
+        }
+
+        int answer = Messages.showYesNoDialog(
+            project,
+            summary + "\nCommit anyway?",
+            "Unicode Cleaner",
+            "Commit",
+            "Cancel",
+            Messages.getWarningIcon()
+        );
+        return answer == Messages.YES ? ReturnResult.COMMIT : ReturnResult.CANCEL;
+    }
+
+    /**
+     * Scans the changed lines of every change. Runs on a background thread; only the document
+     * text is read in read actions, revision contents are loaded and diffed outside of them.
+     */
+    private List<FileIssues> findIssues(@NotNull Collection<Change> changes,
+                                        @NotNull UnicodeCleanerSettings settings,
+                                        int categoryMask,
+                                        @NotNull ProgressIndicator indicator) {
+        List<FileIssues> found = new ArrayList<>();
+        indicator.setIndeterminate(false);
+
+        int done = 0;
+        for (Change change : changes) {
+            indicator.checkCanceled();
+            indicator.setFraction((double) done++ / changes.size());
+
+            VirtualFile file = change.getVirtualFile();
+            if (change.getAfterRevision() == null || file == null || file.getFileType().isBinary()
+                    || !settings.shouldCheckFileType(file.getName())) {
+                continue;
+            }
+            indicator.setText2(file.getName());
+
+            FileIssues fileIssues = scanFile(file, categoryMask, indicator);
+            if (fileIssues != null) {
+                found.add(fileIssues);
+            }
+        }
+        return found;
+    }
+
+    private @Nullable FileIssues scanFile(@NotNull VirtualFile file,
+                                          int categoryMask,
+                                          @NotNull ProgressIndicator indicator) {
+        Document document = ReadAction.compute(() -> FileDocumentManager.getInstance().getDocument(file));
+        if (document == null) {
+            return null;
+        }
+
+        // Line status tracker ranges when known, otherwise a diff against the last revision
+        ChangedRanges.Snapshot snapshot = ChangedRanges.computeSnapshot(project, document, indicator);
+        int issueCount = detector.countIssues(snapshot.text, snapshot.ranges, categoryMask);
+        return issueCount == 0 ? null
+            : new FileIssues(file, document, snapshot.modificationStamp, snapshot.ranges, issueCount);
+    }
+
+    private void fixIssues(@NotNull List<FileIssues> found, int categoryMask) {
+        WriteCommandAction.writeCommandAction(project)
+            .withName("Clean Unicode Characters Before Commit")
+            .run(() -> {
+                for (FileIssues fileIssues : found) {
+                    Document document = fileIssues.document;
+                    if (document.getModificationStamp() != fileIssues.modificationStamp) {
+                        System.err.println("File changed during commit check, not cleaned: " + fileIssues.file.getName());
+                        continue;
+                    }
+                    EditScript edits = detector.computeEdits(document.getImmutableCharSequence(), fileIssues.ranges, categoryMask);
+                    EditScriptApplier.apply(document, edits);
+                }
+            });
+
+        // The commit takes file contents from disk
+        FileDocumentManager documentManager = FileDocumentManager.getInstance();
+        for (FileIssues fileIssues : found) {
+            documentManager.saveDocument(fileIssues.document);
+        }
+    }
+
+    private static String buildSummary(@NotNull List<FileIssues> found, int totalIssues) {
+        StringBuilder summary = new StringBuilder(String.format(
+            "Found %d Unicode issue(s) in the changed lines of %d file(s):\n\n", totalIssues, found.size()));
+        for (int i = 0; i < found.size() && i < SUMMARY_FILE_LIMIT; i++) {
+            FileIssues fileIssues = found.get(i);
+            summary.append(String.format("%s: %d issue(s)\n", fileIssues.file.getName(), fileIssues.issueCount));
+        }
+        if (found.size() > SUMMARY_FILE_LIMIT) {
+            summary.append(String.format("... and %d more file(s)\n", found.size() - SUMMARY_FILE_LIMIT));
+        }
+        return summary.toString();
+    }
+}
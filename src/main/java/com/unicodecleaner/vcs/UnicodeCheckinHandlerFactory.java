@@ -0,0 +1,19 @@
+package com.unicodecleaner.vcs;
+
+import com.intellij.openapi.vcs.CheckinProjectPanel;
+import com.intellij.openapi.vcs.changes.CommitContext;
+import com.intellij.openapi.vcs.checkin.CheckinHandler;
+import com.intellij.openapi.vcs.checkin.CheckinHandlerFactory;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Adds the Unicode check to the commit dialog.
+ */
+public class UnicodeCheckinHandlerFactory extends CheckinHandlerFactory {
+
+    @Override
+    public @NotNull CheckinHandler createHandler(@NotNull CheckinProjectPanel panel,
+                                                 @NotNull CommitContext commitContext) {
+        return new UnicodeCheckinHandler(panel);
+    }
+}
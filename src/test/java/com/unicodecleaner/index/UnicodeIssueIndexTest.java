@@ -0,0 +1,54 @@
+package com.unicodecleaner.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.unicodecleaner.utils.UnicodeDetector;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that finding the files to scan only queries indexes and never walks the project.
+ */
+class UnicodeIssueIndexTest {
+
+    @Test
+    void findFilesToScanOnlyQueriesIndexes() {
+        Project project = mock(Project.class);
+        GlobalSearchScope scope = mock(GlobalSearchScope.class);
+        FileBasedIndex index = mock(FileBasedIndex.class);
+        VirtualFile withIssues = mock(VirtualFile.class);
+        VirtualFile large = mock(VirtualFile.class);
+        UnicodeDetector.CharacterCategory quotes = UnicodeDetector.CharacterCategory.QUOTES;
+
+        try (MockedStatic<FileBasedIndex> indexes = mockStatic(FileBasedIndex.class);
+             MockedStatic<GlobalSearchScope> scopes = mockStatic(GlobalSearchScope.class);
+             MockedStatic<ProjectFileIndex> fileIndexes = mockStatic(ProjectFileIndex.class)) {
+            indexes.when(FileBasedIndex::getInstance).thenReturn(index);
+            scopes.when(() -> GlobalSearchScope.projectScope(any(Project.class))).thenReturn(scope);
+            when(index.getContainingFiles(UnicodeIssueIndex.NAME, quotes.ordinal(), scope)).thenReturn(List.of(withIssues));
+            when(index.getContainingFiles(LargeFileIndex.NAME, 0, scope)).thenReturn(List.of(large));
+
+            Set<VirtualFile> files = UnicodeIssueIndex.findFilesToScan(project, quotes.getMask());
+
+            assertEquals(Set.of(withIssues, large), files);
+            verify(index).getContainingFiles(UnicodeIssueIndex.NAME, quotes.ordinal(), scope);
+            verify(index).getContainingFiles(LargeFileIndex.NAME, 0, scope);
+            verifyNoMoreInteractions(index, project);
+            fileIndexes.verifyNoInteractions();
+        }
+    }
+}
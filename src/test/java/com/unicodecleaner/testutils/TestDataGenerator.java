@@ -0,0 +1,235 @@
+package com.unicodecleaner.testutils;
+
+import com.unicodecleaner.utils.UnicodeDetector;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates deterministic synthetic corpora for performance tests.
+ *
+ * <p>Output is a directory tree of text files written as a stream, so trees of many gigabytes
+ * can be generated without holding file contents in memory. Every file is seeded from the base
+ * seed and its index, so the same arguments always produce byte-identical trees and single
+ * files can be regenerated independently.
+ *
+ * <p>Arguments are {@code key=value} pairs:
+ * <ul>
+ *   <li>{@code out} - output directory (default {@code src/test/resources/testdata})</li>
+ *   <li>{@code files} - number of files (default 20)</li>
+ *   <li>{@code fileSize} - approximate size of each file in chars (default 64k)</li>
+ *   <li>{@code filesPerDir} - files per sub-directory (default 100)</li>
+ *   <li>{@code seed} - base seed (default 42)</li>
+ *   <li>{@code density} - hit probability per char for every category (default 0.001)</li>
+ *   <li>{@code density.CATEGORY} - hit probability for one category, e.g. {@code density.QUOTES=0.01}</li>
+ *   <li>{@code legit} - probability of legitimate non-ASCII chars such as accents and CJK (default 0.01)</li>
+ *   <li>{@code lineLength} - mean line length (default 60)</li>
+ *   <li>{@code lineLengthStdDev} - standard deviation of the line length (default 25)</li>
+ *   <li>{@code blankLines} - probability of a blank line (default 0.05)</li>
+ * </ul>
+ * Sizes accept {@code k}, {@code m} and {@code g} suffixes.
+ */
+public class TestDataGenerator {
+
+    private static final String[] EXTENSIONS = {"txt", "md", "java", "js", "py", "xml", "json", "properties"};
+
+    private static final String[] WORDS = {
+        "the", "value", "of", "each", "field", "is", "checked", "before", "returning", "result",
+        "buffer", "index", "count", "name", "file", "line", "text", "data", "and", "for"
+    };
+
+    // Legitimate non-ASCII characters that must never be reported
+    private static final char[] ACCENTED = "\u00E4\u00F6\u00FC\u00DF\u00E9\u00E8\u00E0\u00E7\u00F1\u00E5\u00F8\u010D\u0161\u017E".toCharArray();
+
+    private final Config config;
+    private final Map<UnicodeDetector.CharacterCategory, int[]> codePointsByCategory;
+
+    public TestDataGenerator(Config config) {
+        this.config = config;
+        this.codePointsByCategory = collectCodePoints();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Config config = Config.parse(args);
+        long start = System.nanoTime();
+
+        long written = new TestDataGenerator(config).generateTree();
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("Generated %d files (%d chars) in %s in %d ms%n",
+                config.files, written, config.out.toAbsolutePath(), millis);
+    }
+
+    /**
+     * Writes the whole tree and returns the number of chars written.
+     */
+    public long generateTree() throws IOException {
+        long written = 0;
+        for (int i = 0; i < config.files; i++) {
+            Path file = config.out
+                    .resolve(String.format("dir%04d", i / config.filesPerDir))
+                    .resolve(String.format("file%06d.%s", i, EXTENSIONS[i % EXTENSIONS.length]));
+            Files.createDirectories(file.getParent());
+
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+                written += generate(writer, config.fileSize, config.seed * 31 + i);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Streams about {@code size} chars of synthetic text to the writer and returns the number
+     * of chars written.
+     */
+    public long generate(Writer writer, long size, long seed) throws IOException {
+        Random random = new Random(seed);
+        long written = 0;
+
+        while (written < size) {
+            if (random.nextDouble() < config.blankLines) {
+                writer.write('\n');
+                written++;
+                continue;
+            }
+
+            int lineLength = (int) Math.max(1, Math.round(config.lineLength + random.nextGaussian() * config.lineLengthStdDev));
+            int column = 0;
+            while (column < lineLength) {
+                column += writeToken(writer, random);
+            }
+            writer.write('\n');
+            written += column + 1;
+        }
+
+        return written;
+    }
+
+    private int writeToken(Writer writer, Random random) throws IOException {
+        double roll = random.nextDouble();
+
+        for (Map.Entry<UnicodeDetector.CharacterCategory, Double> density : config.densities.entrySet()) {
+            if (roll < density.getValue()) {
+                int[] codePoints = codePointsByCategory.get(density.getKey());
+                int codePoint = codePoints[random.nextInt(codePoints.length)];
+                writer.write(Character.toChars(codePoint));
+                return Character.charCount(codePoint);
+            }
+            roll -= density.getValue();
+        }
+
+        if (roll < config.legit) {
+            if (random.nextBoolean()) {
+                writer.write(ACCENTED[random.nextInt(ACCENTED.length)]);
+            } else {
+                writer.write((char) (0x4E00 + random.nextInt(0x5000)));
+            }
+            return 1;
+        }
+
+        String word = WORDS[random.nextInt(WORDS.length)];
+        writer.write(word);
+        writer.write(' ');
+        return word.length() + 1;
+    }
+
+    private static Map<UnicodeDetector.CharacterCategory, int[]> collectCodePoints() {
+        Map<UnicodeDetector.CharacterCategory, List<Integer>> lists = new EnumMap<>(UnicodeDetector.CharacterCategory.class);
+        for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT; codePoint++) {
+            UnicodeDetector.CharacterInfo info = UnicodeDetector.getCharacterInfo(codePoint);
+            if (info != null) {
+                lists.computeIfAbsent(info.category, category -> new ArrayList<>()).add(codePoint);
+            }
+        }
+
+        Map<UnicodeDetector.CharacterCategory, int[]> result = new EnumMap<>(UnicodeDetector.CharacterCategory.class);
+        lists.forEach((category, codePoints) ->
+                result.put(category, codePoints.stream().mapToInt(Integer::intValue).toArray()));
+        return result;
+    }
+
+    /**
+     * Generator configuration parsed from {@code key=value} arguments.
+     */
+    public static class Config {
+        public Path out = Paths.get("src/test/resources/testdata");
+        public int files = 20;
+        public long fileSize = 64 * 1024;
+        public int filesPerDir = 100;
+        public long seed = 42;
+        public Map<UnicodeDetector.CharacterCategory, Double> densities = new EnumMap<>(UnicodeDetector.CharacterCategory.class);
+        public double legit = 0.01;
+        public double lineLength = 60;
+        public double lineLengthStdDev = 25;
+        public double blankLines = 0.05;
+
+        public Config() {
+            for (UnicodeDetector.CharacterCategory category : UnicodeDetector.CharacterCategory.values()) {
+                densities.put(category, 0.001);
+            }
+        }
+
+        public static Config parse(String[] args) {
+            Config config = new Config();
+            for (String arg : args) {
+                int separator = arg.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Expected key=value but got: " + arg);
+                }
+                String key = arg.substring(0, separator);
+                String value = arg.substring(separator + 1);
+
+                switch (key) {
+                    case "out": config.out = Paths.get(value); break;
+                    case "files": config.files = Integer.parseInt(value); break;
+                    case "fileSize": config.fileSize = parseSize(value); break;
+                    case "filesPerDir": config.filesPerDir = Integer.parseInt(value); break;
+                    case "seed": config.seed = Long.parseLong(value); break;
+                    case "legit": config.legit = Double.parseDouble(value); break;
+                    case "lineLength": config.lineLength = Double.parseDouble(value); break;
+                    case "lineLengthStdDev": config.lineLengthStdDev = Double.parseDouble(value); break;
+                    case "blankLines": config.blankLines = Double.parseDouble(value); break;
+                    case "density":
+                        double density = Double.parseDouble(value);
+                        config.densities.replaceAll((category, old) -> density);
+                        break;
+                    default:
+                        if (key.startsWith("density.")) {
+                            config.densities.put(
+                                    UnicodeDetector.CharacterCategory.valueOf(key.substring("density.".length())),
+                                    Double.parseDouble(value));
+                        } else {
+                            throw new IllegalArgumentException("Unknown option: " + key);
+                        }
+                }
+            }
+            return config;
+        }
+
+        private static long parseSize(String value) {
+            String lower = value.toLowerCase();
+            long multiplier = 1;
+            if (lower.endsWith("k")) {
+                multiplier = 1024;
+            } else if (lower.endsWith("m")) {
+                multiplier = 1024 * 1024;
+            } else if (lower.endsWith("g")) {
+                multiplier = 1024L * 1024 * 1024;
+            }
+            String digits = multiplier == 1 ? lower : lower.substring(0, lower.length() - 1);
+            return Long.parseLong(digits) * multiplier;
+        }
+    }
+}
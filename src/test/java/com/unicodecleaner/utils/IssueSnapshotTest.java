@@ -0,0 +1,100 @@
+package com.unicodecleaner.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks incremental updates against full rescans of the edited text.
+ */
+class IssueSnapshotTest {
+
+    // Plain, legitimate and problematic chars, plus lone surrogates so edits can join or split pairs
+    private static final int[] POOL = {
+        'A', ' ', 0x00A0, 0x2019, 0x200B, 0xFF21, 0x4E2D, 0x1F600, 0x1D400, 0xE0041, 0x2014,
+        0xD835, 0xDC00, 0xDB40
+    };
+
+    private final UnicodeDetector detector = new UnicodeDetector();
+
+    @Test
+    void randomEditsMatchFullRescan() {
+        Random random = new Random(7);
+        for (int round = 0; round < 2000; round++) {
+            String text = randomText(random, random.nextInt(50));
+            IssueSnapshot snapshot = IssueSnapshot.scan(text);
+
+            for (int edit = 0; edit < 30; edit++) {
+                int offset = random.nextInt(text.length() + 1);
+                int oldLength = random.nextInt(Math.min(5, text.length() - offset) + 1);
+                String inserted = random.nextInt(5) == 0
+                    ? String.valueOf((char) (0xDC00 + random.nextInt(4)))
+                    : randomText(random, random.nextInt(4));
+                text = text.substring(0, offset) + inserted + text.substring(offset + oldLength);
+                snapshot.update(text, offset, oldLength, inserted.length());
+
+                int mask = random.nextInt(UnicodeDetector.ALL_CATEGORIES_MASK + 1);
+                String context = "round " + round + ", edit " + edit;
+                assertEquals(describe(detector.detectIssues(text, mask)),
+                    describe(snapshot.getIssues(text, 0, text.length(), mask)), context);
+
+                int from = random.nextInt(text.length() + 1);
+                int to = from + random.nextInt(text.length() - from + 1);
+                List<UnicodeDetector.UnicodeIssue> expected = detector.detectIssues(text, from, to, mask);
+                assertEquals(describe(expected), describe(snapshot.getIssues(text, from, to, mask)), context);
+                assertEquals(expected.size(), snapshot.countIssues(from, to, mask), context);
+            }
+        }
+    }
+
+    @Test
+    void editsFarApartKeepOffsetsOnBothSides() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append("a\u200B");
+        }
+        String text = builder.toString();
+        IssueSnapshot snapshot = IssueSnapshot.scan(text);
+
+        // Alternate between both ends so the issues move across the gap each time
+        for (int i = 0; i < 20; i++) {
+            int offset = i % 2 == 0 ? 1 : text.length() - 1;
+            text = text.substring(0, offset) + "xy\u2019" + text.substring(offset);
+            snapshot.update(text, offset, 0, 3);
+        }
+
+        int all = UnicodeDetector.ALL_CATEGORIES_MASK;
+        assertEquals(describe(detector.detectIssues(text, all)), describe(snapshot.getIssues(text, 0, text.length(), all)));
+        assertEquals(1020, snapshot.size());
+    }
+
+    @Test
+    void limitStopsCollectingIssues() {
+        String text = "\u200B\u200B\u2019\u200B";
+        IssueSnapshot snapshot = IssueSnapshot.scan(text);
+
+        int hidden = UnicodeDetector.CharacterCategory.HIDDEN_CONTROL.getMask();
+        assertEquals(2, snapshot.getIssues(text, 0, text.length(), hidden, 2).size());
+        assertEquals(3, snapshot.countIssues(0, text.length(), hidden));
+    }
+
+    private static String randomText(Random random, int codePoints) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < codePoints; i++) {
+            text.appendCodePoint(POOL[random.nextInt(POOL.length)]);
+        }
+        return text.toString();
+    }
+
+    private static String describe(List<UnicodeDetector.UnicodeIssue> issues) {
+        StringBuilder description = new StringBuilder();
+        for (UnicodeDetector.UnicodeIssue issue : issues) {
+            description.append(issue.startOffset).append('-').append(issue.endOffset)
+                .append(':').append(Integer.toHexString(issue.characterInfo.codePoint)).append(' ');
+        }
+        return description.toString();
+    }
+}
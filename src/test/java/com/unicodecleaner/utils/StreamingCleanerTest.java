@@ -0,0 +1,89 @@
+package com.unicodecleaner.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that cleaning a file in place replaces the file a link points to and keeps its attributes.
+ */
+class StreamingCleanerTest {
+
+    private final StreamingCleaner cleaner = new StreamingCleaner(UnicodeDetector.ALL_CATEGORIES_MASK, false);
+
+    @Test
+    void symlinkedFileIsCleanedThroughTheLink() throws IOException {
+        Path dir = Files.createTempDirectory("streaming-cleaner");
+        try {
+            Path target = Files.writeString(dir.resolve("target.txt"), "a\u2019b\u00A0c");
+            Path link = Files.createSymbolicLink(dir.resolve("link.txt"), target.getFileName());
+
+            cleaner.cleanFile(link, StandardCharsets.UTF_8, null);
+
+            assertTrue(Files.isSymbolicLink(link));
+            assertEquals(target.getFileName(), Files.readSymbolicLink(link));
+            assertEquals("a'b c", Files.readString(target));
+            assertEquals(2, list(dir).length);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void attributesAreKept() throws IOException {
+        Path dir = Files.createTempDirectory("streaming-cleaner");
+        try {
+            Path file = Files.writeString(dir.resolve("file.txt"), "\u201Cquoted\u201D");
+            boolean posix = Files.getFileStore(file).supportsFileAttributeView("posix");
+            if (posix) {
+                Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r-----"));
+            }
+            boolean xattrs = Files.getFileStore(file).supportsFileAttributeView(UserDefinedFileAttributeView.class);
+            if (xattrs) {
+                Files.getFileAttributeView(file, UserDefinedFileAttributeView.class)
+                    .write("origin", StandardCharsets.UTF_8.encode("test"));
+            }
+
+            cleaner.cleanFile(file, StandardCharsets.UTF_8, null);
+
+            assertEquals("\"quoted\"", Files.readString(file));
+            if (posix) {
+                assertEquals("rw-r-----", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+            }
+            if (xattrs) {
+                UserDefinedFileAttributeView view = Files.getFileAttributeView(file, UserDefinedFileAttributeView.class);
+                ByteBuffer value = ByteBuffer.allocate(view.size("origin"));
+                view.read("origin", value);
+                value.flip();
+                assertEquals("test", StandardCharsets.UTF_8.decode(value).toString());
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    private static Path[] list(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.toArray(Path[]::new);
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.unicodecleaner.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the single-pass cleaner against the original replace-then-regex cleaning, whole and in
+ * chunks split at arbitrary offsets, including between the chars of a surrogate pair.
+ */
+class TextCleanerTest {
+
+    // Problematic chars plus every kind of whitespace and control char trim() treats as blank
+    private static final int[] POOL = {
+        'a', 'b', ' ', ' ', '\t', '\n', '\n', '\r', '\f', 0x000B, 0x0001, 0x00E4,
+        0x00A0, 0x200B, 0x2003, 0x2019, 0x2014, 0x2026, 0xFEFF, 0xFF21, 0x1D400, 0xE0041,
+        0xD835, 0xDC00
+    };
+
+    private final UnicodeDetector detector = new UnicodeDetector();
+
+    @Test
+    void normalizingMatchesOriginalCleanText() {
+        Random random = new Random(5);
+        for (int round = 0; round < 5000; round++) {
+            String text = randomText(random, random.nextInt(40));
+            String context = "round " + round + ": " + escape(text);
+
+            assertEquals(referenceClean(text), detector.cleanText(text), context);
+            assertEquals(referenceClean(text), cleanInChunks(text, UnicodeDetector.ALL_CATEGORIES_MASK, true, random), context);
+        }
+    }
+
+    @Test
+    void replacingOnlyMatchesIssueReplacement() {
+        Random random = new Random(6);
+        for (int round = 0; round < 5000; round++) {
+            String text = randomText(random, random.nextInt(40));
+            int mask = random.nextInt(UnicodeDetector.ALL_CATEGORIES_MASK + 1);
+            String expected = detector.computeEdits(text, mask).applyTo(text);
+
+            assertEquals(expected, cleanInChunks(text, mask, false, random), "round " + round + ": " + escape(text));
+        }
+    }
+
+    @Test
+    void surrogatePairSplitAcrossChunksIsCleaned() {
+        StringBuilder out = new StringBuilder();
+        TextCleaner cleaner = new TextCleaner(UnicodeDetector.ALL_CATEGORIES_MASK, false, out);
+
+        cleaner.append("x\uD835", 0, 2);
+        cleaner.append("", 0, 0);
+        cleaner.append("\uDC00y", 0, 2);
+        cleaner.finish();
+
+        assertEquals("xAy", out.toString());
+    }
+
+    @Test
+    void loneHighSurrogateAtEndIsKept() {
+        StringBuilder out = new StringBuilder();
+        TextCleaner cleaner = new TextCleaner(UnicodeDetector.ALL_CATEGORIES_MASK, false, out);
+
+        cleaner.append("x\uD835", 0, 2);
+        cleaner.finish();
+
+        assertEquals("x\uD835", out.toString());
+    }
+
+    @Test
+    void trimsAndCapsBlankLines() {
+        assertEquals("a b\n\nc", detector.cleanText(" \t\u00A0a \t b\n\n\n\n\u200Bc\n \r"));
+        assertEquals("", detector.cleanText("\u200B \n\n\n\t"));
+    }
+
+    @Test
+    void resetAllowsReuse() {
+        StringBuilder out = new StringBuilder();
+        TextCleaner cleaner = new TextCleaner(UnicodeDetector.ALL_CATEGORIES_MASK, true, out);
+
+        cleaner.append("  a\uD835", 0, 4);
+        cleaner.reset();
+        out.setLength(0);
+        cleaner.append("\uDC00 b  ", 0, 5);
+        cleaner.finish();
+
+        assertEquals(referenceClean("\uDC00 b  "), out.toString());
+    }
+
+    /**
+     * The original cleanText: replace every issue back to front, collapse blanks, cap blank
+     * lines and trim.
+     */
+    private String referenceClean(String text) {
+        StringBuilder cleaned = new StringBuilder(text);
+        List<UnicodeDetector.UnicodeIssue> issues = detector.detectIssues(text);
+        for (int i = issues.size() - 1; i >= 0; i--) {
+            UnicodeDetector.UnicodeIssue issue = issues.get(i);
+            cleaned.replace(issue.startOffset, issue.endOffset, issue.characterInfo.replacement);
+        }
+        return cleaned.toString()
+            .replaceAll("[ \\t]+", " ")
+            .replaceAll("\\n{3,}", "\n\n")
+            .trim();
+    }
+
+    private static String cleanInChunks(String text, int mask, boolean normalize, Random random) {
+        StringBuilder out = new StringBuilder();
+        TextCleaner cleaner = new TextCleaner(mask, normalize, out);
+        int position = 0;
+        while (position < text.length()) {
+            int end = position + 1 + random.nextInt(Math.min(8, text.length() - position));
+            cleaner.append(text, position, end);
+            position = end;
+        }
+        cleaner.finish();
+        return out.toString();
+    }
+
+    private static String randomText(Random random, int codePoints) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < codePoints; i++) {
+            text.appendCodePoint(POOL[random.nextInt(POOL.length)]);
+        }
+        return text.toString();
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            escaped.append(c >= 0x20 && c < 0x7F ? String.valueOf(c) : String.format("\\u%04X", (int) c));
+        }
+        return escaped.toString();
+    }
+}
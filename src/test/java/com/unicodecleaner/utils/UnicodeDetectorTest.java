@@ -0,0 +1,184 @@
+package com.unicodecleaner.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pins the character table and the scan loops to the original per-char HashMap lookup.
+ */
+class UnicodeDetectorTest {
+
+    // Clean, problematic BMP and supplementary chars, plus lone surrogates
+    static final int[] POOL = {
+        'a', 'Z', ' ', '\t', '\n', 0x00E4, 0x4E2D, 0x1F600,
+        0x00A0, 0x00AD, 0x200B, 0x2019, 0x201C, 0x2014, 0x2026, 0xFE0F, 0xFEFF, 0xFF21,
+        0x1D400, 0x1D7CE, 0xE0041, 0xE0100, 0xD835, 0xDC00
+    };
+
+    private final UnicodeDetector detector = new UnicodeDetector();
+
+    @Test
+    void bmpTableMatchesOriginalCharacterMap() {
+        Map<Character, String> expected = new HashMap<>();
+        put(expected, "\u00AD\u180E\u200B\u200C\u200D\u200E\u200F\u202A\u202B\u202C\u202D\u202E"
+            + "\u2060\u2061\u2062\u2063\u2064\u206A\u206B\u206C\u206D\u206E\u206F\uFEFF", "", "HIDDEN_CONTROL");
+        put(expected, "\u00A0\u1680\u2000\u2001\u2002\u2003\u2004\u2005\u2006\u2007\u2008\u2009\u200A"
+            + "\u202F\u205F\u3000", " ", "SPACE");
+        put(expected, "\u2012\u2013\u2014\u2015\u2212", "-", "DASHES");
+        put(expected, "\u2018\u2019\u201A\u201B\u2032\u2035", "'", "QUOTES");
+        put(expected, "\u201C\u201D\u201E\u201F\u2033\u2036\u00AB\u00BB", "\"", "QUOTES");
+        put(expected, "\u2034", "'''", "QUOTES");
+        put(expected, "\u2026", "...", "PUNCTUATION");
+        put(expected, "\u2022\u00B7", "*", "PUNCTUATION");
+        for (char c = '\uFE00'; c <= '\uFE0F'; c++) {
+            expected.put(c, "|VARIATION");
+        }
+        for (char c = '\uFF01'; c <= '\uFF5E'; c++) {
+            expected.put(c, (char) (c - 0xFF01 + 0x21) + "|FULL_WIDTH");
+        }
+
+        for (int c = 0; c <= 0xFFFF; c++) {
+            UnicodeDetector.CharacterInfo info = UnicodeDetector.getCharacterInfo((char) c);
+            String actual = info == null ? null : info.replacement + "|" + info.category.name();
+            assertEquals(expected.get((char) c), actual, Integer.toHexString(c));
+            assertEquals(info != null, UnicodeDetector.isProblematicCharacter((char) c), Integer.toHexString(c));
+        }
+    }
+
+    @Test
+    void scansMatchPerCodePointLookup() {
+        Random random = new Random(11);
+        for (int round = 0; round < 3000; round++) {
+            String text = randomText(random, random.nextInt(60));
+            int mask = random.nextInt(UnicodeDetector.ALL_CATEGORIES_MASK + 1);
+            String context = "round " + round;
+
+            String expected = describe(referenceIssues(text, 0, text.length(), mask));
+            // Strings, array-backed buffers and other sequences each have a scan loop of their own
+            assertEquals(expected, describe(detector.detectIssues(text, mask)), context);
+            assertEquals(expected, describe(detector.detectIssues(text.toCharArray(), mask)), context);
+            assertEquals(expected, describe(detector.detectIssues(new StringBuilder(text), mask)), context);
+
+            List<UnicodeDetector.UnicodeIssue> reference = referenceIssues(text, 0, text.length(), mask);
+            assertEquals(reference.size(), detector.countIssues(text, mask), context);
+            assertEquals(!reference.isEmpty(), detector.containsIssue(CharBuffer.wrap(text), mask), context);
+            int[] byCategory = new int[UnicodeDetector.CharacterCategory.values().length];
+            StringBuilder cleaned = new StringBuilder(text);
+            for (int i = reference.size() - 1; i >= 0; i--) {
+                UnicodeDetector.UnicodeIssue issue = reference.get(i);
+                byCategory[issue.characterInfo.category.ordinal()]++;
+                cleaned.replace(issue.startOffset, issue.endOffset, issue.characterInfo.replacement);
+            }
+            assertEquals(describe(byCategory), describe(detector.countByCategory(text, mask)), context);
+            assertEquals(cleaned.toString(), detector.computeEdits(text, mask).applyTo(text), context);
+            assertEquals(cleaned.toString(), detector.cleanText(text, mask), context);
+
+            int from = random.nextInt(text.length() + 1);
+            int to = from + random.nextInt(text.length() - from + 1);
+            int[] ranges = {from, to};
+            List<UnicodeDetector.UnicodeIssue> inRange = referenceIssues(text, from, to, mask);
+            assertEquals(describe(inRange), describe(detector.detectIssues(text, ranges, mask)), context);
+            assertEquals(inRange.size(), detector.countIssues(text, ranges, mask), context);
+        }
+    }
+
+    @Test
+    void surrogatePairsAreOneIssue() {
+        String text = "x\uD835\uDC00y";
+        List<UnicodeDetector.UnicodeIssue> issues = detector.detectIssues(text, UnicodeDetector.ALL_CATEGORIES_MASK);
+
+        assertEquals(1, issues.size());
+        assertEquals(1, issues.get(0).startOffset);
+        assertEquals(3, issues.get(0).endOffset);
+        assertEquals("A", issues.get(0).characterInfo.replacement);
+        assertEquals("xAy", detector.cleanText(text, UnicodeDetector.ALL_CATEGORIES_MASK));
+    }
+
+    @Test
+    void loneSurrogatesAreNotReported() {
+        int all = UnicodeDetector.ALL_CATEGORIES_MASK;
+
+        assertFalse(detector.containsIssue("a\uD835", all));
+        assertFalse(detector.containsIssue("\uDC00b", all));
+        assertFalse(detector.containsIssue("\uDC00\uD835", all));
+        assertTrue(detector.containsIssue("\uD835\uD835\uDC00", all));
+    }
+
+    @Test
+    void rangeEndingInsidePairStillCompletesIt() {
+        String text = "ab\uD835\uDC00";
+        int[] ranges = {0, 3};
+
+        List<UnicodeDetector.UnicodeIssue> issues = detector.detectIssues(text, ranges, UnicodeDetector.ALL_CATEGORIES_MASK);
+        assertEquals(1, issues.size());
+        assertEquals(4, issues.get(0).endOffset);
+    }
+
+    @Test
+    void categoriesOutsideMaskAreSkipped() {
+        String text = "\u2019\u2014\u00A0";
+        int quotes = UnicodeDetector.CharacterCategory.QUOTES.getMask();
+
+        assertEquals(1, detector.countIssues(text, quotes));
+        assertEquals("'\u2014\u00A0", detector.cleanText(text, quotes));
+        assertEquals(0, detector.countIssues(text, 0));
+    }
+
+    static String randomText(Random random, int codePoints) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < codePoints; i++) {
+            text.appendCodePoint(POOL[random.nextInt(POOL.length)]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * The original detection: look up each char, or each surrogate pair, on its own.
+     */
+    static List<UnicodeDetector.UnicodeIssue> referenceIssues(String text, int from, int to, int mask) {
+        List<UnicodeDetector.UnicodeIssue> issues = new ArrayList<>();
+        int i = from;
+        while (i < to) {
+            int codePoint = text.codePointAt(i);
+            UnicodeDetector.CharacterInfo info = UnicodeDetector.getCharacterInfo(codePoint);
+            if (info != null && (info.category.getMask() & mask) != 0) {
+                issues.add(new UnicodeDetector.UnicodeIssue(i, i + info.length(), info, text));
+            }
+            i += Character.charCount(codePoint);
+        }
+        return issues;
+    }
+
+    static String describe(List<UnicodeDetector.UnicodeIssue> issues) {
+        StringBuilder description = new StringBuilder();
+        for (UnicodeDetector.UnicodeIssue issue : issues) {
+            description.append(issue.startOffset).append('-').append(issue.endOffset)
+                .append(':').append(Integer.toHexString(issue.characterInfo.codePoint)).append(' ');
+        }
+        return description.toString();
+    }
+
+    private static String describe(int[] counts) {
+        StringBuilder description = new StringBuilder();
+        for (int count : counts) {
+            description.append(count).append(' ');
+        }
+        return description.toString();
+    }
+
+    private static void put(Map<Character, String> expected, String chars, String replacement, String category) {
+        for (int i = 0; i < chars.length(); i++) {
+            expected.put(chars.charAt(i), replacement + "|" + category);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.unicodecleaner.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the byte-level scanner against decoding the bytes with the JDK and running the
+ * detector on the result, for valid and malformed input and for input split into windows.
+ */
+class Utf8ScannerTest {
+
+    // Fragments that are valid, truncated, overlong, encoded surrogates or out of range
+    private static final byte[][] MALFORMED = {
+        {(byte) 0x80}, {(byte) 0xBF}, {(byte) 0xC0, (byte) 0x80}, {(byte) 0xC1, (byte) 0xBF},
+        {(byte) 0xE2, (byte) 0x80}, {(byte) 0xE0, (byte) 0x80, (byte) 0x80}, {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+        {(byte) 0xF0, (byte) 0x9D}, {(byte) 0xF0, (byte) 0x9D, (byte) 0x90}, {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80},
+        {(byte) 0xF5}, {(byte) 0xFF}, {(byte) 0xE2, (byte) 0x80, (byte) 0x8B}, {(byte) 0xF0, (byte) 0x9D, (byte) 0x90, (byte) 0x80}
+    };
+
+    private final UnicodeDetector detector = new UnicodeDetector();
+
+    @Test
+    void validTextMatchesDetector() {
+        Random random = new Random(3);
+        for (int round = 0; round < 3000; round++) {
+            String text = UnicodeDetectorTest.randomText(random, random.nextInt(60));
+            // Lone surrogates are not encodable, the encoder writes '?' for them
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            String decoded = new String(utf8, StandardCharsets.UTF_8);
+            int mask = random.nextInt(UnicodeDetector.ALL_CATEGORIES_MASK + 1);
+
+            StringBuilder expected = new StringBuilder();
+            for (UnicodeDetector.UnicodeIssue issue : detector.detectIssues(decoded, mask)) {
+                int byteOffset = decoded.substring(0, issue.startOffset).getBytes(StandardCharsets.UTF_8).length;
+                expected.append(byteOffset).append('/').append(issue.startOffset).append(':')
+                    .append(Integer.toHexString(issue.characterInfo.codePoint)).append(' ');
+            }
+            assertEquals(expected.toString(), scan(utf8, 0, utf8.length, mask), "round " + round);
+            assertEquals(decoded.length(), Utf8Scanner.utf16Length(utf8, 0, utf8.length), "round " + round);
+        }
+    }
+
+    @Test
+    void malformedInputCountsLikeJdkDecoder() {
+        Random random = new Random(4);
+        for (int round = 0; round < 5000; round++) {
+            byte[] utf8 = randomBytes(random, random.nextInt(30));
+            String decoded = new String(utf8, StandardCharsets.UTF_8);
+            int all = UnicodeDetector.ALL_CATEGORIES_MASK;
+            String context = "round " + round;
+
+            assertEquals(decoded.length(), Utf8Scanner.utf16Length(utf8, 0, utf8.length), context);
+            assertEquals(charOffsets(detector.detectIssues(decoded, all)), charOffsets(utf8, 0, utf8.length, all), context);
+            assertEquals(detector.countIssues(decoded, all), Utf8Scanner.countIssues(utf8, 0, utf8.length, all), context);
+        }
+    }
+
+    @Test
+    void splittingAtSequenceBoundaryKeepsIssues() {
+        Random random = new Random(8);
+        for (int round = 0; round < 3000; round++) {
+            byte[] utf8 = randomBytes(random, random.nextInt(30));
+            int all = UnicodeDetector.ALL_CATEGORIES_MASK;
+            int split = Utf8Scanner.sequenceBoundary(utf8, 0, random.nextInt(utf8.length + 1));
+
+            int whole = Utf8Scanner.countIssues(utf8, 0, utf8.length, all);
+            int parts = Utf8Scanner.countIssues(utf8, 0, split, all) + Utf8Scanner.countIssues(utf8, split, utf8.length, all);
+            assertEquals(whole, parts, "round " + round);
+            assertEquals(Utf8Scanner.utf16Length(utf8, 0, utf8.length),
+                Utf8Scanner.utf16Length(utf8, 0, split) + Utf8Scanner.utf16Length(utf8, split, utf8.length), "round " + round);
+        }
+    }
+
+    @Test
+    void windowedScanSkipsBomAndMatchesDecodedText() throws IOException {
+        Random random = new Random(9);
+        String text = UnicodeDetectorTest.randomText(random, 2000);
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        byte[] utf8 = new byte[body.length + 3];
+        utf8[0] = (byte) 0xEF;
+        utf8[1] = (byte) 0xBB;
+        utf8[2] = (byte) 0xBF;
+        System.arraycopy(body, 0, utf8, 3, body.length);
+
+        String decoded = new String(body, StandardCharsets.UTF_8);
+        int all = UnicodeDetector.ALL_CATEGORIES_MASK;
+        Path file = Files.createTempFile("utf8-scanner", ".txt");
+        try {
+            Files.write(file, utf8);
+            // Small windows, so sequences are cut at window ends over and over
+            for (int windowSize : new int[]{8, 13, 64, 4096}) {
+                StringBuilder actual = new StringBuilder();
+                long count = new WindowedFileScanner(all, windowSize).scan(file,
+                    (byteOffset, charOffset, info) -> actual.append(charOffset).append(' '));
+
+                assertEquals(charOffsets(detector.detectIssues(decoded, all)), actual.toString(), "window " + windowSize);
+                assertEquals(detector.countIssues(decoded, all), count, "window " + windowSize);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void locatedIssuesMatchDocumentPositions() throws IOException {
+        Random random = new Random(17);
+        String text = UnicodeDetectorTest.randomText(random, 3000);
+        int all = UnicodeDetector.ALL_CATEGORIES_MASK;
+        List<UnicodeDetector.UnicodeIssue> expected = detector.detectIssues(text, all);
+
+        Path file = Files.createTempFile("utf8-scanner", ".txt");
+        try {
+            Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+            for (int windowSize : new int[]{8, 13, 64, 4096}) {
+                for (int limit : new int[]{0, 1, 25, expected.size() + 1}) {
+                    List<WindowedFileScanner.LocatedIssue> issues =
+                        new WindowedFileScanner(all, windowSize).findIssues(file, limit);
+                    String context = "window " + windowSize + ", limit " + limit;
+
+                    assertEquals(Math.min(limit, expected.size()), issues.size(), context);
+                    for (int i = 0; i < issues.size(); i++) {
+                        int offset = expected.get(i).startOffset;
+                        int lineStart = text.lastIndexOf('\n', offset - 1) + 1;
+                        WindowedFileScanner.LocatedIssue issue = issues.get(i);
+                        assertEquals(offset, issue.charOffset, context);
+                        assertEquals(text.substring(0, offset).split("\n", -1).length - 1, issue.line, context);
+                        assertEquals(offset - lineStart, issue.column, context);
+                        assertEquals(expected.get(i).characterInfo, issue.info, context);
+                        assertTrue(issue.context.contains(new String(Character.toChars(issue.info.codePoint))), context);
+                    }
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void bomIsReportedWhenScanningRawBytes() {
+        byte[] utf8 = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'a'};
+
+        assertEquals("0/0:feff ", scan(utf8, 0, utf8.length, UnicodeDetector.ALL_CATEGORIES_MASK));
+        assertEquals("", scan(utf8, 3, utf8.length, UnicodeDetector.ALL_CATEGORIES_MASK));
+    }
+
+    private static String scan(byte[] utf8, int from, int to, int mask) {
+        StringBuilder issues = new StringBuilder();
+        Utf8Scanner.scan(utf8, from, to, mask, (byteOffset, charOffset, info) ->
+            issues.append(byteOffset).append('/').append(charOffset).append(':')
+                .append(Integer.toHexString(info.codePoint)).append(' '));
+        return issues.toString();
+    }
+
+    private static String charOffsets(byte[] utf8, int from, int to, int mask) {
+        StringBuilder offsets = new StringBuilder();
+        Utf8Scanner.scan(utf8, from, to, mask, (byteOffset, charOffset, info) -> offsets.append(charOffset).append(' '));
+        return offsets.toString();
+    }
+
+    private static String charOffsets(List<UnicodeDetector.UnicodeIssue> issues) {
+        StringBuilder offsets = new StringBuilder();
+        for (UnicodeDetector.UnicodeIssue issue : issues) {
+            offsets.append(issue.startOffset).append(' ');
+        }
+        return offsets.toString();
+    }
+
+    private static byte[] randomBytes(Random random, int fragments) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int i = 0; i < fragments; i++) {
+            if (random.nextBoolean()) {
+                bytes.writeBytes(MALFORMED[random.nextInt(MALFORMED.length)]);
+            } else {
+                bytes.writeBytes(UnicodeDetectorTest.randomText(random, 1).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return bytes.toByteArray();
+    }
+}